@@ -0,0 +1,68 @@
+package es.pokedex.bench;
+
+import es.pokedex.util.BackupManager;
+import es.pokedex.util.DataBaseConnection;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Utilidades compartidas por los benchmarks: directorios temporales y base de datos embebida.
+ */
+final class BenchSupport {
+
+    private BenchSupport() {}
+
+    static Path tempDir() {
+        try {
+            return Files.createTempDirectory("pokedex-bench");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void deleteRecursively(Path dir) {
+        if (dir == null || !Files.exists(dir)) return;
+        BackupManager.shared().awaitIdle(1, TimeUnit.MINUTES);   // Backups pendientes en dir/backups
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Apunta DataBaseConnection a un H2 en memoria en modo MySQL y crea el esquema (sql/schema.sql).
+     * Debe llamarse antes de la primera conexión del proceso (cada fork de JMH es un proceso nuevo).
+     */
+    static void useEmbeddedDatabase() {
+        System.setProperty("db.url", "jdbc:h2:mem:pokedex_bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        System.setProperty("db.user", "sa");
+        System.setProperty("db.password", "");
+
+        try (InputStream in = BenchSupport.class.getClassLoader().getResourceAsStream("sql/schema.sql");
+             Connection con = DataBaseConnection.getConnection();
+             Statement st = con.createStatement()) {
+
+            st.execute("DROP ALL OBJECTS");
+            String schema = new String(in.readAllBytes(), StandardCharsets.UTF_8).replaceAll("(?m)^--.*$", "");
+            for (String sql : schema.split(";")) {
+                if (!sql.isBlank()) st.execute(sql);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error creando el esquema embebido", e);
+        }
+    }
+}
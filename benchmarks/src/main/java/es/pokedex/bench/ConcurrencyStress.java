@@ -0,0 +1,108 @@
+package es.pokedex.bench;
+
+import es.pokedex.domain.Movimiento;
+import es.pokedex.repository.MovimientoRepository;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prueba de estrés de concurrencia de los repositorios JSON: comprueba que no se pierden actualizaciones.
+ * Varios hilos incrementan la potencia de movimientos al azar con update() mientras otros leen;
+ * al final cada movimiento debe tener exactamente tantos incrementos como se hicieron sobre él,
+ * tanto en memoria como al volver a leer el fichero.
+ *
+ * Uso: java -cp benchmarks.jar es.pokedex.bench.ConcurrencyStress [hilos] [incrementosPorHilo]
+ * Termina con código 1 si encuentra una actualización perdida.
+ */
+public class ConcurrencyStress {
+
+    private static final int MOVIMIENTOS = 200;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        boolean ok = true;
+        for (boolean journaled : new boolean[]{false, true}) {
+            ok &= run(threads, perThread, journaled);
+        }
+        System.exit(ok ? 0 : 1);
+    }
+
+    private static boolean run(int threads, int perThread, boolean journaled) throws Exception {
+        Path dir = BenchSupport.tempDir();
+        try {
+            SyntheticData data = new SyntheticData(42);
+            List<Movimiento> movimientos = data.movimientos(MOVIMIENTOS);
+            movimientos.forEach(m -> m.setPotencia(0));
+            MovimientoRepository repo = new MovimientoRepository(dir.toString(), journaled);
+            repo.saveAll(movimientos);
+
+            long[] expected = new long[MOVIMIENTOS];
+            AtomicLong reads = new AtomicLong();
+            ExecutorService pool = Executors.newFixedThreadPool(threads * 2);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<long[]>> writers = new ArrayList<>();
+            long t0 = System.nanoTime();
+
+            for (int t = 0; t < threads; t++) {
+                writers.add(pool.submit(() -> {
+                    long[] done = new long[MOVIMIENTOS];
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        int k = ThreadLocalRandom.current().nextInt(MOVIMIENTOS);
+                        repo.update(SyntheticData.movimientoId(k), m -> m.setPotencia(m.getPotencia() + 1));
+                        done[k]++;
+                    }
+                    return done;
+                }));
+                // Lectores en paralelo: no deben ver nunca una potencia negativa ni un movimiento que falte
+                pool.submit(() -> {
+                    start.await();
+                    while (!writers.stream().allMatch(Future::isDone)) {
+                        Movimiento m = repo.findById(SyntheticData.movimientoId(ThreadLocalRandom.current().nextInt(MOVIMIENTOS)));
+                        if (m == null || m.getPotencia() < 0) throw new IllegalStateException("Lectura inconsistente");
+                        reads.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+
+            start.countDown();
+            for (Future<long[]> f : writers) {
+                long[] done = f.get();
+                for (int k = 0; k < MOVIMIENTOS; k++) expected[k] += done[k];
+            }
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+            long ms = (System.nanoTime() - t0) / 1_000_000;
+
+            int lost = check(repo, expected);
+            repo.compact();
+            repo.close();
+            int lostOnDisk;
+            try (MovimientoRepository reopened = new MovimientoRepository(dir.toString(), journaled)) {
+                lostOnDisk = check(reopened, expected);
+            }
+
+            System.out.printf("journaled=%s hilos=%d escrituras=%d lecturas=%d tiempo=%d ms perdidas=%d perdidasEnDisco=%d%n",
+                    journaled, threads, (long) threads * perThread, reads.get(), ms, lost, lostOnDisk);
+            return lost == 0 && lostOnDisk == 0;
+        } finally {
+            BenchSupport.deleteRecursively(dir);
+        }
+    }
+
+    // Nº de movimientos cuya potencia no coincide con los incrementos hechos
+    private static int check(MovimientoRepository repo, long[] expected) {
+        int wrong = 0;
+        for (int k = 0; k < expected.length; k++) {
+            if (repo.findById(SyntheticData.movimientoId(k)).getPotencia() != expected[k]) wrong++;
+        }
+        return wrong;
+    }
+}
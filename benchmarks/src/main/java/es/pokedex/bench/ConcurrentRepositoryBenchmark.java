@@ -0,0 +1,60 @@
+package es.pokedex.bench;
+
+import es.pokedex.domain.Movimiento;
+import es.pokedex.repository.MovimientoRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lectores y un escritor a la vez sobre MovimientoRepository (JSON):
+ * mide cuánto esperan las lecturas mientras el escritor reescribe el fichero.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentRepositoryBenchmark {
+
+    @Param({"10000", "100000"})
+    int size;
+
+    private Path dir;
+    private MovimientoRepository repo;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        dir = BenchSupport.tempDir();
+        new SyntheticData(42).writeDataDir(dir, 0, size, 0);
+        repo = new MovimientoRepository(dir.toString());
+        repo.count();   // Carga inicial fuera de la medida
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        repo.close();
+        BenchSupport.deleteRecursively(dir);
+    }
+
+    private String randomId() {
+        return SyntheticData.movimientoId(ThreadLocalRandom.current().nextInt(size));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(7)
+    public Movimiento reader() {
+        return repo.findById(randomId());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public Movimiento writer() {
+        return repo.update(randomId(), m -> m.setPotencia(ThreadLocalRandom.current().nextInt(251)));
+    }
+}
@@ -0,0 +1,90 @@
+package es.pokedex.bench;
+
+import es.pokedex.domain.Entrenador;
+import es.pokedex.domain.Region;
+import es.pokedex.repository.EntrenadorRepository;
+import es.pokedex.repository.RankingEntrenador;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EntrenadorRepository (JSON) con el fichero ya cargado.
+ * Los entrenadores no tienen tipo: su consulta equivalente a findByTipo es findByRegion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntrenadorRepositoryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    @Param({"false", "true"})
+    boolean journaled;
+
+    private Path dir;
+    private EntrenadorRepository repo;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        dir = BenchSupport.tempDir();
+        new SyntheticData(42).writeDataDir(dir, SyntheticData.MAX_POKEMONS, 1000, size);
+        repo = new EntrenadorRepository(dir.toString(), journaled);
+        repo.count();   // Carga inicial fuera de la medida
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        repo.close();
+        BenchSupport.deleteRecursively(dir);
+    }
+
+    private String randomId() {
+        return SyntheticData.dni(ThreadLocalRandom.current().nextInt(size));
+    }
+
+    @Benchmark
+    public Entrenador findById() {
+        return repo.findById(randomId());
+    }
+
+    @Benchmark
+    public Entrenador save() {
+        Entrenador e = repo.findById(randomId());
+        e.setNombre("Bench" + ThreadLocalRandom.current().nextInt(1000));
+        return repo.save(e);
+    }
+
+    @Benchmark
+    public List<Entrenador> findByRegion() {
+        Region[] regiones = Region.values();
+        return repo.findByRegion(regiones[ThreadLocalRandom.current().nextInt(regiones.length)]);
+    }
+
+    // Top 10 por tamaño de equipo: índice ordenado, montículo acotado y ordenar la lista completa (como antes)
+
+    @Benchmark
+    public List<Entrenador> topByTeamSizeIndex() {
+        return repo.topBy(RankingEntrenador.EQUIPO, 10);
+    }
+
+    @Benchmark
+    public List<Entrenador> topByTeamSizeHeap() {
+        return repo.top(RankingEntrenador.EQUIPO.order(), 10);
+    }
+
+    @Benchmark
+    public List<Entrenador> topByTeamSizeFullSort() {
+        return repo.findAllToList().stream()
+                .sorted(RankingEntrenador.EQUIPO.order())
+                .limit(10)
+                .toList();
+    }
+}
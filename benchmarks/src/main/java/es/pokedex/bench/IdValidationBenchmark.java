@@ -0,0 +1,69 @@
+package es.pokedex.bench;
+
+import es.pokedex.domain.IdFormats;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validación de los IDs que hace cada constructor al deserializar: String.matches (un Pattern nuevo
+ * por llamada, como antes) frente a IdFormats (recorrido de caracteres sin crear objetos).
+ * Con -prof gc se ve la diferencia de memoria asignada por operación.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdValidationBenchmark {
+
+    private static final int N = 1024;
+
+    private final String[] dnis = new String[N];
+    private final String[] movimientos = new String[N];
+    private final String[] pokedex = new String[N];
+
+    @Setup(Level.Trial)
+    public void setup() {
+        for (int i = 0; i < N; i++) {
+            dnis[i] = SyntheticData.dni(i);
+            movimientos[i] = SyntheticData.movimientoId(i);
+            pokedex[i] = String.format("%03d", i % 1000);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(3 * N)
+    public int regex() {
+        int ok = 0;
+        for (int i = 0; i < N; i++) {
+            if (dnis[i].matches("\\d{8}[A-Z]")) ok++;
+            if (movimientos[i].matches("[A-Z]{2}\\d{4}")) ok++;
+            if (pokedex[i].matches("\\d{3}")) ok++;
+        }
+        return ok;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(3 * N)
+    public int idFormats() {
+        int ok = 0;
+        for (int i = 0; i < N; i++) {
+            if (IdFormats.isDniFormat(dnis[i])) ok++;
+            if (IdFormats.isMovimientoId(movimientos[i])) ok++;
+            if (IdFormats.isPokedexNumber(pokedex[i])) ok++;
+        }
+        return ok;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N)
+    public int dniChecksum() {
+        int ok = 0;
+        for (int i = 0; i < N; i++) {
+            if (IdFormats.isDni(dnis[i])) ok++;
+        }
+        return ok;
+    }
+}
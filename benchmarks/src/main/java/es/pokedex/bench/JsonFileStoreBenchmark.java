@@ -0,0 +1,62 @@
+package es.pokedex.bench;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import es.pokedex.domain.Movimiento;
+import es.pokedex.util.JsonFileStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Lectura y escritura completas de un fichero JSON con JsonFileStore,
+ * cargando la lista entera o en streaming elemento a elemento.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonFileStoreBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    private final JsonFileStore store = new JsonFileStore();
+    private Path dir;
+    private Path file;
+    private List<Movimiento> data;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        dir = BenchSupport.tempDir();
+        file = dir.resolve("movimientos.json");
+        data = new SyntheticData(42).movimientos(size);
+        store.writeList(file, data);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchSupport.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public List<Movimiento> readList() {
+        return store.readList(file, new TypeReference<>(){});
+    }
+
+    @Benchmark
+    public long readStream() {
+        try (Stream<Movimiento> s = store.readStream(file, new TypeReference<>(){})) {
+            return s.filter(m -> m.getPotencia() > 100).count();
+        }
+    }
+
+    @Benchmark
+    public void writeList() {
+        store.writeList(file, data);
+    }
+}
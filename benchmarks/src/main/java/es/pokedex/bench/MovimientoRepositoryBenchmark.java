@@ -0,0 +1,68 @@
+package es.pokedex.bench;
+
+import es.pokedex.domain.Movimiento;
+import es.pokedex.domain.TipoPokemon;
+import es.pokedex.repository.MovimientoRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MovimientoRepository (JSON) con el fichero ya cargado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MovimientoRepositoryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    @Param({"false", "true"})
+    boolean journaled;
+
+    private Path dir;
+    private MovimientoRepository repo;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        dir = BenchSupport.tempDir();
+        new SyntheticData(42).writeDataDir(dir, 0, size, 0);
+        repo = new MovimientoRepository(dir.toString(), journaled);
+        repo.count();   // Carga inicial fuera de la medida
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        repo.close();
+        BenchSupport.deleteRecursively(dir);
+    }
+
+    private String randomId() {
+        return SyntheticData.movimientoId(ThreadLocalRandom.current().nextInt(size));
+    }
+
+    @Benchmark
+    public Movimiento findById() {
+        return repo.findById(randomId());
+    }
+
+    @Benchmark
+    public Movimiento save() {
+        Movimiento m = repo.findById(randomId());
+        m.setPotencia(ThreadLocalRandom.current().nextInt(251));
+        return repo.save(m);
+    }
+
+    @Benchmark
+    public List<Movimiento> findByTipo() {
+        TipoPokemon[] tipos = TipoPokemon.values();
+        return repo.findByTipo(tipos[ThreadLocalRandom.current().nextInt(tipos.length)]);
+    }
+}
@@ -0,0 +1,110 @@
+package es.pokedex.bench;
+
+import es.pokedex.domain.Entrenador;
+import es.pokedex.domain.Movimiento;
+import es.pokedex.domain.Pokemon;
+import es.pokedex.repository.EntrenadorRepositoryMySQL;
+import es.pokedex.repository.MovimientoRepositoryMySQL;
+import es.pokedex.repository.PokemonRepositoryMySQL;
+import es.pokedex.util.DataBaseConnection;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repositorios MySQL contra una base de datos embebida (H2 en modo MySQL, en memoria).
+ * Mide el coste de pool, SQL y mapeo sin la red de por medio.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MySqlRepositoryBenchmark {
+
+    @Param({"1000", "100000"})
+    int size;
+
+    // PreparedStatement guardados por conexión del pool (0 = preparar en cada llamada)
+    @Param({"0", "64"})
+    int statementCacheSize;
+
+    private PokemonRepositoryMySQL pokemonRepo;
+    private MovimientoRepositoryMySQL movRepo;
+    private EntrenadorRepositoryMySQL entRepo;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        System.setProperty("pool.statementCacheSize", String.valueOf(statementCacheSize));
+        BenchSupport.useEmbeddedDatabase();
+        pokemonRepo = new PokemonRepositoryMySQL();
+        movRepo = new MovimientoRepositoryMySQL();
+        entRepo = new EntrenadorRepositoryMySQL();
+
+        SyntheticData gen = new SyntheticData(42);
+        movRepo.saveAll(gen.movimientos(size));
+        pokemonRepo.saveAll(gen.pokemons(SyntheticData.MAX_POKEMONS, 4, size));
+        entRepo.saveAll(gen.entrenadores(size, SyntheticData.MAX_POKEMONS));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.println(DataBaseConnection.getPool().getStatementCacheStats());
+    }
+
+    private static String randomPokedexNumber() {
+        return SyntheticData.pokedexNumber(ThreadLocalRandom.current().nextInt(SyntheticData.MAX_POKEMONS));
+    }
+
+    private String randomDni() {
+        return SyntheticData.dni(ThreadLocalRandom.current().nextInt(size));
+    }
+
+    @Benchmark
+    public Pokemon pokemonFindById() {
+        return pokemonRepo.findById(randomPokedexNumber());
+    }
+
+    @Benchmark
+    public boolean pokemonExistsById() {
+        return pokemonRepo.existsById(randomPokedexNumber());
+    }
+
+    @Benchmark
+    public Pokemon pokemonSave() {
+        Pokemon p = pokemonRepo.findById(randomPokedexNumber());
+        p.setNombre("Bench" + ThreadLocalRandom.current().nextInt(1000));
+        return pokemonRepo.save(p);
+    }
+
+    /**
+     * Resolución de un equipo completo (6 Pokémon).
+     */
+    @Benchmark
+    public List<Pokemon> pokemonFindAllById() {
+        List<String> team = new ArrayList<>();
+        for (int i = 0; i < 6; i++) team.add(randomPokedexNumber());
+        return pokemonRepo.findAllById(team);
+    }
+
+    @Benchmark
+    public Movimiento movimientoFindById() {
+        return movRepo.findById(SyntheticData.movimientoId(ThreadLocalRandom.current().nextInt(size)));
+    }
+
+    @Benchmark
+    public Entrenador entrenadorFindById() {
+        return entRepo.findById(randomDni());
+    }
+
+    @Benchmark
+    public Entrenador entrenadorSave() {
+        Entrenador e = entRepo.findById(randomDni());
+        e.setNombre("Bench" + ThreadLocalRandom.current().nextInt(1000));
+        return entRepo.save(e);
+    }
+}
@@ -0,0 +1,69 @@
+package es.pokedex.bench;
+
+import es.pokedex.domain.Pokemon;
+import es.pokedex.domain.TipoPokemon;
+import es.pokedex.repository.PokemonRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PokemonRepository (JSON) con el fichero ya cargado.
+ * El número de Pokédex tiene 3 dígitos, así que el máximo es 1000 Pokémon.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PokemonRepositoryBenchmark {
+
+    @Param({"100", "1000"})
+    int size;
+
+    @Param({"false", "true"})
+    boolean journaled;
+
+    private Path dir;
+    private PokemonRepository repo;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        dir = BenchSupport.tempDir();
+        new SyntheticData(42).writeDataDir(dir, size, 10_000, 0);
+        repo = new PokemonRepository(dir.toString(), journaled);
+        repo.count();   // Carga inicial fuera de la medida
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        repo.close();
+        BenchSupport.deleteRecursively(dir);
+    }
+
+    private String randomId() {
+        return SyntheticData.pokedexNumber(ThreadLocalRandom.current().nextInt(size));
+    }
+
+    @Benchmark
+    public Pokemon findById() {
+        return repo.findById(randomId());
+    }
+
+    @Benchmark
+    public Pokemon save() {
+        Pokemon p = repo.findById(randomId());
+        p.setNombre("Bench" + ThreadLocalRandom.current().nextInt(1000));
+        return repo.save(p);
+    }
+
+    @Benchmark
+    public List<Pokemon> findByTipo() {
+        TipoPokemon[] tipos = TipoPokemon.values();
+        return repo.findByTipo(tipos[ThreadLocalRandom.current().nextInt(tipos.length)]);
+    }
+}
@@ -0,0 +1,153 @@
+package es.pokedex.bench;
+
+import es.pokedex.domain.Entrenador;
+import es.pokedex.domain.Movimiento;
+import es.pokedex.domain.Pokemon;
+import es.pokedex.domain.Region;
+import es.pokedex.repository.EntrenadorRepository;
+import es.pokedex.repository.MovimientoRepository;
+import es.pokedex.repository.PokemonRepository;
+import es.pokedex.service.EntrenadorService;
+import es.pokedex.service.PokemonService;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operaciones de servicio sobre los repositorios JSON:
+ * - PokemonService.deleteMovimiento de un movimiento usado por muchos Pokémon.
+ * - EntrenadorService.assignPokemonToEntrenador.
+ * - Asignar 3 Pokémon a cada uno de BATCH entrenadores: en un bucle de assignPokemonToEntrenador
+ *   o con un solo assignPokemons.
+ * Cada invocación parte del mismo estado (se restaura fuera de la medida).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    // Movimiento tipo NORMAL que se asigna a todos los Pokémon NORMAL
+    private static final String POPULAR = SyntheticData.movimientoId(0);
+    private static final String TRAINER = SyntheticData.dni(0);
+    private static final String PIKACHU = "025";
+    private static final int BATCH = 100;
+    private static final List<String> KANTO_TRIO = List.of("001", "004", "007");
+
+    @State(Scope.Benchmark)
+    public static class Data {
+
+        @Param({"1000", "100000"})
+        int entrenadores;
+
+        Path dir;
+        PokemonRepository pokemonRepo;
+        MovimientoRepository movRepo;
+        EntrenadorRepository entRepo;
+        PokemonService pokemonService;
+        EntrenadorService entrenadorService;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            dir = BenchSupport.tempDir();
+            new SyntheticData(42).writeDataDir(dir, SyntheticData.MAX_POKEMONS, 10_000, entrenadores);
+            pokemonRepo = new PokemonRepository(dir.toString());
+            movRepo = new MovimientoRepository(dir.toString());
+            entRepo = new EntrenadorRepository(dir.toString());
+            pokemonService = new PokemonService(pokemonRepo, entRepo, movRepo);
+            entrenadorService = new EntrenadorService(entRepo, pokemonRepo);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            pokemonRepo.close();
+            movRepo.close();
+            entRepo.close();
+            BenchSupport.deleteRecursively(dir);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class PopularMove {
+
+        Movimiento movimiento;
+        List<Pokemon> affected = new ArrayList<>();
+
+        @Setup(Level.Trial)
+        public void setup(Data data) {
+            movimiento = data.movRepo.findById(POPULAR);
+            for (Pokemon p : data.pokemonRepo.findAllToList()) {
+                if (p.getTipo() == movimiento.getTipo()) {
+                    p.addMovimiento(POPULAR);
+                    affected.add(p);
+                }
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void restore(Data data) {
+            data.movRepo.save(movimiento);
+            data.pokemonRepo.saveAll(affected);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class EmptyTeam {
+
+        @Setup(Level.Invocation)
+        public void restore(Data data) {
+            data.entRepo.save(new Entrenador(TRAINER, "Bench", Region.KANTO, new ArrayList<>()));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class EmptyTeams {
+
+        List<Entrenador> empty = new ArrayList<>();
+        Map<String, List<String>> asignaciones = new LinkedHashMap<>();
+
+        @Setup(Level.Trial)
+        public void setup() {
+            for (int i = 0; i < BATCH; i++) {
+                String id = SyntheticData.dni(i);
+                empty.add(new Entrenador(id, "Bench" + i, Region.KANTO, new ArrayList<>()));
+                asignaciones.put(id, KANTO_TRIO);
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void restore(Data data) {
+            List<Entrenador> copies = new ArrayList<>();
+            for (Entrenador e : empty) copies.add(new Entrenador(e.getId(), e.getNombre(), e.getRegion(), new ArrayList<>()));
+            data.entRepo.saveAll(copies);
+        }
+    }
+
+    @Benchmark
+    public int deleteMovimiento(Data data, PopularMove move) {
+        return data.pokemonService.deleteMovimiento(POPULAR);
+    }
+
+    @Benchmark
+    public void assignPokemonToEntrenador(Data data, EmptyTeam team) {
+        data.entrenadorService.assignPokemonToEntrenador(TRAINER, PIKACHU);
+    }
+
+    @Benchmark
+    public void assignLoop(Data data, EmptyTeams teams) {
+        teams.asignaciones.forEach((id, numbers) -> {
+            for (String n : numbers) data.entrenadorService.assignPokemonToEntrenador(id, n);
+        });
+    }
+
+    @Benchmark
+    public List<EntrenadorService.Asignacion> assignBulk(Data data, EmptyTeams teams) {
+        return data.entrenadorService.assignPokemons(teams.asignaciones);
+    }
+}
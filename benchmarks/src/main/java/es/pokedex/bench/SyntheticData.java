@@ -0,0 +1,144 @@
+package es.pokedex.bench;
+
+import es.pokedex.domain.Entrenador;
+import es.pokedex.domain.Movimiento;
+import es.pokedex.domain.Pokemon;
+import es.pokedex.domain.Region;
+import es.pokedex.domain.TipoPokemon;
+import es.pokedex.util.JsonFileStore;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generador de datos sintéticos válidos para los benchmarks.
+ * - DNI: 8 dígitos + letra de control real.
+ * - Movimientos: ID "AA0000" (2 letras + 4 dígitos).
+ * - Pokémon: número de Pokédex de 3 dígitos, por eso como mucho hay 1000.
+ * Con la misma semilla genera siempre los mismos datos.
+ */
+public final class SyntheticData {
+
+    public static final int MAX_POKEMONS = 1000;            // "000" .. "999"
+    public static final int MAX_MOVIMIENTOS = 26 * 26 * 10_000;
+    private static final String DNI_LETTERS = "TRWAGMYFPDXBNJZSQVHLCKE";
+    private static final String[] SYLLABLES = {
+            "ka", "ri", "to", "pi", "chu", "bul", "ba", "sau", "mew", "char",
+            "zar", "squi", "gle", "eve", "on", "la", "pras", "dra", "gon", "ite"
+    };
+    private static final TipoPokemon[] TIPOS = TipoPokemon.values();
+    private static final Region[] REGIONES = Region.values();
+
+    private final Random random;
+
+    public SyntheticData(long seed) {
+        this.random = new Random(seed);
+    }
+
+    // ---------------- IDs ----------------
+
+    /**
+     * DNI número n (0 .. 99.999.999) con su letra de control.
+     */
+    public static String dni(int n) {
+        return String.format("%08d%c", n, DNI_LETTERS.charAt(n % 23));
+    }
+
+    /**
+     * ID de movimiento número n (0 .. MAX_MOVIMIENTOS-1): AA0000, AA0001, ... ZZ9999.
+     */
+    public static String movimientoId(int n) {
+        int letters = n / 10_000;
+        return String.format("%c%c%04d", (char) ('A' + letters / 26), (char) ('A' + letters % 26), n % 10_000);
+    }
+
+    /**
+     * Número de Pokédex n (0 .. 999) con 3 dígitos.
+     */
+    public static String pokedexNumber(int n) {
+        return String.format("%03d", n);
+    }
+
+    /**
+     * Tipo del movimiento n: rotan todos los tipos, así el movimiento n es compatible con el Pokémon n.
+     */
+    public static TipoPokemon tipo(int n) {
+        return TIPOS[n % TIPOS.length];
+    }
+
+    // ---------------- Entidades ----------------
+
+    public List<Movimiento> movimientos(int count) {
+        check(count, MAX_MOVIMIENTOS, "movimientos");
+        List<Movimiento> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(new Movimiento(movimientoId(i), name(), tipo(i), random.nextInt(251)));
+        }
+        return list;
+    }
+
+    /**
+     * Pokémon con hasta movesPerPokemon movimientos de su mismo tipo tomados de los primeros movimientoCount.
+     */
+    public List<Pokemon> pokemons(int count, int movesPerPokemon, int movimientoCount) {
+        check(count, MAX_POKEMONS, "pokemons");
+        int sameTipo = movimientoCount / TIPOS.length;   // Movimientos disponibles de cada tipo
+        List<Pokemon> list = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            List<String> movs = new ArrayList<>();
+            for (int k = 0; k < movesPerPokemon && sameTipo > 0; k++) {
+                String id = movimientoId(random.nextInt(sameTipo) * TIPOS.length + i % TIPOS.length);
+                if (!movs.contains(id)) movs.add(id);
+            }
+            list.add(new Pokemon(pokedexNumber(i), name(), tipo(i), movs));
+        }
+        return list;
+    }
+
+    /**
+     * Entrenadores con un equipo aleatorio de 0 a 6 Pokémon tomados de los primeros pokemonCount.
+     */
+    public List<Entrenador> entrenadores(int count, int pokemonCount) {
+        check(count, 100_000_000, "entrenadores");
+        List<Entrenador> list = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            List<String> team = new ArrayList<>();
+            int size = pokemonCount == 0 ? 0 : random.nextInt(7);
+            while (team.size() < Math.min(size, pokemonCount)) {
+                String id = pokedexNumber(random.nextInt(pokemonCount));
+                if (!team.contains(id)) team.add(id);
+            }
+            list.add(new Entrenador(dni(i), name(), REGIONES[random.nextInt(REGIONES.length)], team));
+        }
+        return list;
+    }
+
+    /**
+     * Escribe los tres ficheros JSON del directorio de datos (pokemons, movimientos, entrenadores).
+     */
+    public void writeDataDir(Path dir, int pokemons, int movimientos, int entrenadores) {
+        JsonFileStore store = new JsonFileStore();
+        store.writeList(dir.resolve("movimientos.json"), movimientos(movimientos));
+        store.writeList(dir.resolve("pokemons.json"), pokemons(pokemons, 4, movimientos));
+        store.writeList(dir.resolve("entrenadores.json"), entrenadores(entrenadores, pokemons));
+    }
+
+    // ---------------- Auxiliares ----------------
+
+    private String name() {
+        StringBuilder sb = new StringBuilder();
+        int n = 2 + random.nextInt(2);
+        for (int i = 0; i < n; i++) sb.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
+        return sb.toString();
+    }
+
+    private static void check(int count, int max, String what) {
+        if (count < 0 || count > max)
+            throw new IllegalArgumentException("Como mucho " + max + " " + what + " (pedidos " + count + ")");
+    }
+}
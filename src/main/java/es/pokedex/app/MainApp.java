@@ -11,9 +11,14 @@ import es.pokedex.repository.MovimientoRepository;
 import es.pokedex.repository.PokemonRepository;
 import es.pokedex.service.EntrenadorService;
 import es.pokedex.service.PokemonService;
+import es.pokedex.service.ReportService;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Scanner;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import es.pokedex.repository.*;
 import es.pokedex.service.EntrenadorService;
 import es.pokedex.service.PokemonService;
@@ -22,13 +27,20 @@ import es.pokedex.service.PokemonService;
 
 public class MainApp {
     private static final String DATA_DIR = "data";
+    // Modo journal opcional (log + compactación): java -Dpokedex.journal=true ...
+    private static final boolean JOURNAL = Boolean.getBoolean("pokedex.journal");
+    // Snapshots binarios (data/*.bin, ver MainSnapshot) en lugar de JSON: java -Dpokedex.binary=true ...
+    private static final boolean BINARY = Boolean.getBoolean("pokedex.binary");
+    // Entidades por página en los listados
+    private static final int PAGE_SIZE = 20;
 
-    private final PokemonRepository pokemonRepo = new PokemonRepository(DATA_DIR);
-    private final MovimientoRepository movRepo = new MovimientoRepository(DATA_DIR);
-    private final EntrenadorRepository entRepo = new EntrenadorRepository(DATA_DIR);
+    private final PokemonRepository pokemonRepo = new PokemonRepository(DATA_DIR, JOURNAL, BINARY);
+    private final MovimientoRepository movRepo = new MovimientoRepository(DATA_DIR, JOURNAL, BINARY);
+    private final EntrenadorRepository entRepo = new EntrenadorRepository(DATA_DIR, JOURNAL, BINARY);
 
     private final EntrenadorService entrenadorService = new EntrenadorService(entRepo, pokemonRepo);
     private final PokemonService pokemonService = new PokemonService(pokemonRepo, entRepo, movRepo);
+    private final ReportService reportService = new ReportService(pokemonRepo, movRepo, entRepo);
 
     private final Scanner sc = new Scanner(System.in);
 
@@ -53,12 +65,26 @@ public class MainApp {
                 case "2" -> menuEntrenadores();
                 case "3" -> menuMovimientos();
                 case "4" -> menuReportes();
-                case "0" -> { System.out.println("Adiós"); return; }
+                case "0" -> { compactAll(); closeAll(); System.out.println("Adiós"); return; }
                 default -> System.out.println("Opción no válida");
             }
         }
     }
 
+    // Al salir vuelca los logs a los JSON (no hace nada si no se usa el modo journal).
+    private void compactAll() {
+        pokemonRepo.compact();
+        movRepo.compact();
+        entRepo.compact();
+    }
+
+    // Después de compactar: para los hilos escritores de los logs y la compactación periódica.
+    private void closeAll() {
+        pokemonRepo.close();
+        movRepo.close();
+        entRepo.close();
+    }
+
     // ---------- POKEMONS ---------
     // Muestra menú de Pokemons.
     private void menuPokemons() {
@@ -76,7 +102,7 @@ public class MainApp {
             System.out.print("Opción: ");
             String o = sc.nextLine().trim();
             switch (o) {
-                case "1" -> printPokemons(pokemonRepo.findAllToList());
+                case "1" -> printPaged(pokemonRepo.streamAll(null, PAGE_SIZE), this::printPokemons);
                 case "2" -> { System.out.print("PokedexNumber: "); String id = sc.nextLine().trim(); printPokemon(pokemonRepo.findById(id)); }
                 case "3" -> { TipoPokemon t = chooseTipo(); if (t != null) printPokemons(pokemonRepo.findByTipo(t)); }
                 case "4" -> createPokemon();
@@ -186,12 +212,25 @@ public class MainApp {
         }
     }
 
+    // Muestra un listado de página en página (se lee del repositorio según se avanza, sin cargarlo entero)
+    // y pregunta antes de pasar a la siguiente.
+    private <T> void printPaged(Stream<T> all, Consumer<List<T>> printPage) {
+        Iterator<T> it = all.iterator();
+        while (it.hasNext()) {
+            List<T> page = new ArrayList<>(PAGE_SIZE);
+            while (page.size() < PAGE_SIZE && it.hasNext()) page.add(it.next());
+            printPage.accept(page);
+            if (!it.hasNext()) return;
+            System.out.print("Enter para seguir, q para terminar: ");
+            if (sc.nextLine().trim().equalsIgnoreCase("q")) return;
+        }
+    }
+
     // Imprime resumen simple de Pokemons y quiénes los usan.
     private void printPokemons(List<Pokemon> list) {
         System.out.println("Pokedex | Nombre | Tipo | #Movimientos | Usado por");
         for (Pokemon p : list) {
-            List<String> users = entRepo.findAllToList().stream()
-                    .filter(e -> e.getPokedexNumbers().contains(p.getPokedexNumber()))
+            List<String> users = entRepo.findByPokemon(p.getPokedexNumber()).stream()
                     .map(e -> e.getNombre())
                     .collect(Collectors.toList());
             System.out.printf("%s | %s | %s | %d | %s%n", p.getPokedexNumber(), p.getNombre(), p.getTipo(), p.getMovimientoIds().size(), String.join(", ", users));
@@ -214,16 +253,18 @@ public class MainApp {
             System.out.println("3) Asignar pokemon");
             System.out.println("4) Mostrar pokemons de entrenador");
             System.out.println("5) Borrar entrenador");
-            System.out.println("6) Volver");
+            System.out.println("6) Listar todos con sus pokemons");
+            System.out.println("7) Volver");
             System.out.print("Opción: ");
             String o = sc.nextLine().trim();
             switch (o) {
-                case "1" -> printEntrenadores(entRepo.findAllToList());
+                case "1" -> printPaged(entRepo.streamAll(null, PAGE_SIZE), this::printEntrenadores);
                 case "2" -> createEntrenador();
                 case "3" -> assignPokemonToEntrenador();
                 case "4" -> showPokemonsOfEntrenador();
                 case "5" -> deleteEntrenador();
-                case "6" -> { return; }
+                case "6" -> printEquipos(entrenadorService.getAllEquipos());
+                case "7" -> { return; }
                 default -> System.out.println("No válido");
             }
         }
@@ -291,6 +332,18 @@ public class MainApp {
         }
     }
 
+    // Lista entrenadores con el nombre de cada Pokémon de su equipo.
+    private void printEquipos(List<EntrenadorService.Equipo> equipos) {
+        System.out.println("ID | Nombre | Region | Pokemons");
+        for (var eq : equipos) {
+            var e = eq.entrenador();
+            String pokemons = eq.pokemons().stream()
+                    .map(p -> p.getPokedexNumber() + " " + p.getNombre())
+                    .collect(Collectors.joining(", "));
+            System.out.printf("%s | %s | %s | %s%n", e.getId(), e.getNombre(), e.getRegion(), pokemons);
+        }
+    }
+
     // ---------- MOVIMIENTOS ---------
     // Muestra menú de movimientos.
     private void menuMovimientos() {
@@ -303,7 +356,7 @@ public class MainApp {
             System.out.print("Opción: ");
             String o = sc.nextLine().trim();
             switch (o) {
-                case "1" -> printMovimientos(movRepo.findAllToList());
+                case "1" -> printPaged(movRepo.streamAll(null, PAGE_SIZE), this::printMovimientos);
                 case "2" -> createMovimiento();
                 case "3" -> deleteMovimiento();
                 case "4" -> { return; }
@@ -362,12 +415,18 @@ public class MainApp {
     private void menuReportes() {
         System.out.println("\n--- REPORTES ---");
         System.out.println("Pokemons por tipo:");
-        pokemonRepo.countByTipo().forEach((k,v)-> System.out.printf("%s: %d%n", k, v));
+        reportService.pokemonsPorTipo().forEach((k,v)-> System.out.printf("%s: %d%n", k, v));
         System.out.println("Top entrenadores por nº pokemons:");
-        entRepo.findAllToList().stream()
-                .sorted((a,b) -> Integer.compare(b.getPokedexNumbers().size(), a.getPokedexNumbers().size()))
-                .limit(10)
+        reportService.topEntrenadores(10)
                 .forEach(e -> System.out.printf("%s (%s): %d%n", e.getNombre(), e.getId(), e.getPokedexNumbers().size()));
+        System.out.println("Potencia de movimientos por tipo:");
+        reportService.potenciasPorTipo(20).forEach((tipo, hist) -> {
+            System.out.print(tipo + ":");
+            hist.forEach((desde, n) -> System.out.printf(" [%d-%d): %d", desde, desde + 20, n));
+            System.out.println();
+        });
+        System.out.println("Entrenadores por región:");
+        reportService.entrenadoresPorRegion().forEach((k,v)-> System.out.printf("%s: %d%n", k, v));
     }
 }
 
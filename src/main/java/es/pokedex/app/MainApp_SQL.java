@@ -5,16 +5,22 @@ import es.pokedex.exception.EntityNotFoundException;
 import es.pokedex.repository.*;
 import es.pokedex.service.EntrenadorService;
 import es.pokedex.service.PokemonService;
+import es.pokedex.service.ReportService;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Scanner;
-
-// todo entrenador case 4 no enseña pokemon
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 // Main principal usando MySQL.
 public class MainApp_SQL {
 
+    // Filas por página en los listados
+    private static final int PAGE_SIZE = 20;
+
     private final PokemonRepositoryMySQL pokemonRepo = new PokemonRepositoryMySQL();
     private final MovimientoRepositoryMySQL movRepo = new MovimientoRepositoryMySQL();
     private final EntrenadorRepositoryMySQL entRepo = new EntrenadorRepositoryMySQL();
@@ -25,6 +31,9 @@ public class MainApp_SQL {
     private final PokemonService pokemonService =
             new PokemonService(pokemonRepo, entRepo, movRepo);
 
+    private final ReportService reportService =
+            new ReportService(pokemonRepo, movRepo, entRepo);
+
     private final Scanner sc = new Scanner(System.in);
 
     public static void main(String[] args) {
@@ -69,7 +78,7 @@ public class MainApp_SQL {
 
             switch (sc.nextLine().trim()) {
 
-                case "1" -> printPokemons(pokemonRepo.findAllToList());
+                case "1" -> printPaged(pokemonRepo.streamAll(null, PAGE_SIZE), this::printPokemons);
 
                 case "2" -> {
                     System.out.print("Introduzca el ID del Pokémon (3 dígitos): ");
@@ -160,6 +169,20 @@ public class MainApp_SQL {
         }
     }
 
+    // Muestra un listado de página en página: cada página es una consulta por clave (WHERE id > ?),
+    // así que nunca se lee la tabla entera. Pregunta antes de pasar a la siguiente.
+    private <T> void printPaged(Stream<T> all, Consumer<List<T>> printPage) {
+        Iterator<T> it = all.iterator();
+        while (it.hasNext()) {
+            List<T> page = new ArrayList<>(PAGE_SIZE);
+            while (page.size() < PAGE_SIZE && it.hasNext()) page.add(it.next());
+            printPage.accept(page);
+            if (!it.hasNext()) return;
+            System.out.print("Enter para seguir, q para terminar: ");
+            if (sc.nextLine().trim().equalsIgnoreCase("q")) return;
+        }
+    }
+
     private void printPokemons(List<Pokemon> list) {
         list.forEach(p ->
                 System.out.println(p.getPokedexNumber() + " - " + p.getNombre())
@@ -188,8 +211,8 @@ public class MainApp_SQL {
 
             switch (sc.nextLine().trim()) {
 
-                case "1" -> entRepo.findAllToList()
-                        .forEach(e -> System.out.println(e.getId() + " - " + e.getNombre()));
+                case "1" -> printPaged(entRepo.streamAll(null, PAGE_SIZE), page ->
+                        page.forEach(e -> System.out.println(e.getId() + " - " + e.getNombre())));
 
                 case "2" -> createEntrenador();
 
@@ -258,8 +281,8 @@ public class MainApp_SQL {
 
             switch (sc.nextLine().trim()) {
 
-                case "1" -> movRepo.findAllToList()
-                        .forEach(m -> System.out.println(m.getId() + " - " + m.getNombre()));
+                case "1" -> printPaged(movRepo.streamAll(null, PAGE_SIZE), page ->
+                        page.forEach(m -> System.out.println(m.getId() + " - " + m.getNombre())));
 
                 case "2" -> createMovimiento();
 
@@ -293,7 +316,24 @@ public class MainApp_SQL {
     // ================= REPORTES =================
 
     private void menuReportes() {
-        pokemonRepo.countByTipo()
+        System.out.println("\n--- REPORTES ---");
+        System.out.println("Pokemons por tipo:");
+        reportService.pokemonsPorTipo()
+                .forEach((k, v) -> System.out.println(k + ": " + v));
+
+        System.out.println("Top entrenadores por nº pokemons:");
+        reportService.topEntrenadores(10)
+                .forEach(e -> System.out.println(e.getNombre() + " (" + e.getId() + "): " + e.getPokedexNumbers().size()));
+
+        System.out.println("Potencia de movimientos por tipo:");
+        reportService.potenciasPorTipo(20).forEach((tipo, hist) -> {
+            System.out.print(tipo + ":");
+            hist.forEach((desde, n) -> System.out.print(" [" + desde + "-" + (desde + 20) + "): " + n));
+            System.out.println();
+        });
+
+        System.out.println("Entrenadores por región:");
+        reportService.entrenadoresPorRegion()
                 .forEach((k, v) -> System.out.println(k + ": " + v));
     }
 }
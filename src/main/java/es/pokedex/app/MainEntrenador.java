@@ -36,8 +36,8 @@ public class MainEntrenador {
 
             switch (op) {
 
-                // Lista todos los entrenadores usa entRepo.findAllToList().
-                case "1" -> entRepo.findAllToList().forEach(e ->
+                // Lista todos los entrenadores usa entRepo.streamAll (de 100 en 100, sin cargarlos todos).
+                case "1" -> entRepo.streamAll(null, 100).forEach(e ->
                         System.out.println(e.getId() + " - " + e.getNombre() +
                                 " (" + e.getRegion() + ") Pokemons: " + e.getPokedexNumbers())
                 );
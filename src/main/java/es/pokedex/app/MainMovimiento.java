@@ -33,7 +33,7 @@ public class MainMovimiento {
             String op = sc.nextLine().trim();
 
             switch (op) {
-                case "1" -> repo.findAllToList().forEach(m ->
+                case "1" -> repo.streamAll(null, 100).forEach(m ->
                         System.out.println(m.getId() + " - " + m.getNombre() +
                                 " (" + m.getTipo() + ", " + m.getPotencia() + ")")
                 );
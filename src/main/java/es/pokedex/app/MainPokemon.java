@@ -40,7 +40,7 @@ public class MainPokemon {
             switch (op) {
 
                 // Lista todos los Pokemons y muestra id, nombre y tipo.
-                case "1" -> repo.findAllToList().forEach(p ->
+                case "1" -> repo.streamAll(null, 100).forEach(p ->
                         System.out.println(p.getPokedexNumber() + " - " + p.getNombre() + " - " + p.getTipo())
                 );
 
@@ -0,0 +1,61 @@
+package es.pokedex.app;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import es.pokedex.domain.Entrenador;
+import es.pokedex.domain.Movimiento;
+import es.pokedex.domain.Pokemon;
+import es.pokedex.repository.SnapshotCodecs;
+import es.pokedex.util.BinarySnapshot;
+import es.pokedex.util.JsonFileStore;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+// Herramienta de conversión entre los ficheros JSON de data/ y los snapshots binarios (.bin).
+// Uso: MainSnapshot import [dataDir]   → data/*.json a data/*.bin
+//      MainSnapshot export [dataDir]   → data/*.bin a data/*.json
+
+public class MainSnapshot {
+
+    private static final String DATA_DIR = "data";
+
+    private static final JsonFileStore store = new JsonFileStore();
+
+    public static void main(String[] args) {
+        if (args.length < 1 || !(args[0].equals("import") || args[0].equals("export"))) {
+            System.out.println("Uso: MainSnapshot import|export [dataDir]");
+            return;
+        }
+        boolean toBinary = args[0].equals("import");
+        Path dir = Paths.get(args.length > 1 ? args[1] : DATA_DIR);
+
+        convert(dir, "pokemons", new TypeReference<List<Pokemon>>(){}, SnapshotCodecs.POKEMON, toBinary);
+        convert(dir, "movimientos", new TypeReference<List<Movimiento>>(){}, SnapshotCodecs.MOVIMIENTO, toBinary);
+        convert(dir, "entrenadores", new TypeReference<List<Entrenador>>(){}, SnapshotCodecs.ENTRENADOR, toBinary);
+    }
+
+    // Convierte un fichero en el sentido indicado; si el origen no existe lo salta.
+    private static <T> void convert(Path dir, String name, TypeReference<List<T>> ref,
+                                    BinarySnapshot.Codec<T> codec, boolean toBinary) {
+        Path json = dir.resolve(name + ".json");
+        Path bin = dir.resolve(name + ".bin");
+        Path from = toBinary ? json : bin;
+
+        if (!Files.exists(from)) {
+            System.out.println("No existe " + from + ", se omite");
+            return;
+        }
+
+        List<T> list;
+        if (toBinary) {
+            list = store.readList(json, ref);
+            BinarySnapshot.write(bin, list, codec);
+        } else {
+            list = BinarySnapshot.open(bin, codec).readAll();
+            store.writeList(json, list);
+        }
+        System.out.println(from + " -> " + (toBinary ? bin : json) + " (" + list.size() + " registros)");
+    }
+}
@@ -0,0 +1,29 @@
+package es.pokedex.app;
+
+import es.pokedex.service.DataValidator;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// Valida de una vez todos los registros de los JSON de data/ y lista todas las infracciones.
+// Uso: MainValidate [dataDir]   (termina con código 1 si encuentra alguna)
+
+public class MainValidate {
+
+    private static final String DATA_DIR = "data";
+
+    public static void main(String[] args) {
+        Path dir = Paths.get(args.length > 0 ? args[0] : DATA_DIR);
+        DataValidator.Report report = new DataValidator().validate(dir);
+
+        report.registros().forEach((file, n) -> System.out.println(dir.resolve(file) + ": " + n + " registros"));
+        report.violaciones().forEach(System.out::println);
+
+        if (report.isValid()) {
+            System.out.println("Sin errores");
+        } else {
+            System.out.println(report.violaciones().size() + " errores");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package es.pokedex.domain;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Lista de IDs guardada como int[] en lugar de un ArrayList de Strings: un solo array por lista
+ * y contains/indexOf comparan enteros. Hacia fuera sigue siendo una List&lt;String&gt; normal
+ * (se serializa igual en JSON); cada get() decodifica el ID.
+ * Un valor sin el formato de su tipo (datos antiguos o corruptos) no se rechaza: se guarda tal cual en
+ * una lista aparte y en codes queda su posición en negativo. Así un ID incorrecto no impide cargar el
+ * fichero y DataValidator lo sigue señalando; la lista aparte solo se crea si hace falta.
+ */
+abstract class CompactIdList extends AbstractList<String> implements RandomAccess {
+
+    private int[] codes;
+    private int size;
+    private List<String> raw;   // Valores sin formato; en codes aparecen como -(posición + 1)
+
+    CompactIdList(Collection<String> ids) {
+        if (ids instanceof CompactIdList other && other.getClass() == getClass()) {
+            codes = Arrays.copyOf(other.codes, other.size);
+            size = other.size;
+            if (other.raw != null) raw = new ArrayList<>(other.raw);
+        } else {
+            codes = new int[ids == null ? 0 : ids.size()];
+            if (ids != null) for (String id : ids) add(id);
+        }
+    }
+
+    abstract String decode(int code);
+
+    /**
+     * Código de o, o -1 si no es un ID con el formato (entonces se guarda o se busca en raw).
+     */
+    abstract int codeOf(Object o);
+
+    @Override
+    public String get(int index) {
+        int code = codes[checkIndex(index)];
+        return code >= 0 ? decode(code) : raw.get(-code - 1);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String set(int index, String id) {
+        String old = get(index);
+        int code = store(id);
+        codes[index] = code;
+        return old;
+    }
+
+    @Override
+    public void add(int index, String id) {
+        if (index < 0 || index > size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        int code = store(id);
+        if (size == codes.length) codes = Arrays.copyOf(codes, Math.max(4, size * 2));
+        System.arraycopy(codes, index, codes, index + 1, size - index);
+        codes[index] = code;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public String remove(int index) {
+        String old = get(index);
+        System.arraycopy(codes, index + 1, codes, index, size - index - 1);
+        size--;
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        raw = null;
+        modCount++;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        int code = codeOf(o);
+        for (int i = 0; i < size; i++) {
+            if (matches(codes[i], code, o)) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        int code = codeOf(o);
+        for (int i = size - 1; i >= 0; i--) {
+            if (matches(codes[i], code, o)) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    // Código que se guarda para id: el suyo si tiene formato; si no, se apunta en raw.
+    // Los valores de raw que dejan de usarse (remove/set) se quedan hasta el próximo clear: son casos raros
+    private int store(String id) {
+        int code = codeOf(id);
+        if (code >= 0) return code;
+        if (raw == null) raw = new ArrayList<>(1);
+        raw.add(id);
+        return -raw.size();
+    }
+
+    // Si el elemento guardado con stored es o (cuyo código es code, o -1 si no tiene formato)
+    private boolean matches(int stored, int code, Object o) {
+        if (code >= 0) return stored == code;
+        return stored < 0 && Objects.equals(raw.get(-stored - 1), o);
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return index;
+    }
+
+    /**
+     * Números de Pokédex (3 dígitos).
+     */
+    static final class PokedexNumbers extends CompactIdList {
+        PokedexNumbers(Collection<String> ids) { super(ids); }
+
+        @Override
+        String decode(int code) { return IdFormats.decodePokedexNumber(code); }
+
+        @Override
+        int codeOf(Object o) {
+            return o instanceof String s && IdFormats.isPokedexNumber(s) ? IdFormats.encodePokedexNumber(s) : -1;
+        }
+    }
+
+    /**
+     * IDs de movimiento (AA0000).
+     */
+    static final class MovimientoIds extends CompactIdList {
+        MovimientoIds(Collection<String> ids) { super(ids); }
+
+        @Override
+        String decode(int code) { return IdFormats.decodeMovimientoId(code); }
+
+        @Override
+        int codeOf(Object o) {
+            return o instanceof String s && IdFormats.isMovimientoId(s) ? IdFormats.encodeMovimientoId(s) : -1;
+        }
+    }
+}
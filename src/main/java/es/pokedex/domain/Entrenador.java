@@ -4,7 +4,6 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import es.pokedex.exception.InvalidFormatException;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
@@ -12,7 +11,7 @@ public class Entrenador {
     private final String id;                  // DNI único del entrenador (8 dígitos + letra)
     private String nombre;                    // Nombre del entrenador
     private Region region;                    // Región a la que pertenece
-    private List<String> pokedexNumbers = new ArrayList<>();  // Lista de IDs de Pokémon asociados
+    private final List<String> pokedexNumbers;  // Lista de IDs de Pokémon asociados (como int[])
 
     /**
      * Constructor usado por Jackson y por la app.
@@ -24,8 +23,9 @@ public class Entrenador {
                       @JsonProperty("region") Region region,
                       @JsonProperty("pokedexNumbers") List<String> pokedexNumbers) {
 
-        // Valida el formato de DNI (8 dígitos + una letra mayúscula)
-        if (id == null || !id.matches("\\d{8}[A-Z]"))
+        // Valida el formato de DNI (8 dígitos + una letra mayúscula). La letra de control no se exige aquí
+        // (hay datos guardados que no la cumplen): la comprueba la validación en bloque (DataValidator)
+        if (!IdFormats.isDniFormat(id))
             throw new InvalidFormatException("DNI tiene que tener 8 digitos + una mayúscula, eje: 65788344F");
 
         // Valida nombre no nulo/vacío
@@ -40,8 +40,8 @@ public class Entrenador {
         this.nombre = nombre;
         this.region = region;
 
-        // Si viene desde JSON, mantiene la lista; sino deja una lista vacía
-        if (pokedexNumbers != null) this.pokedexNumbers = pokedexNumbers;
+        // Se copia la lista que venga (de JSON o de la app) a la representación compacta; si no hay, vacía
+        this.pokedexNumbers = new CompactIdList.PokedexNumbers(pokedexNumbers);
     }
 
     // Getters y setters con validación simple
@@ -0,0 +1,121 @@
+package es.pokedex.domain;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * Catálogo de generaciones: qué números de Pokédex corresponden a cada región.
+ * Los rangos se leen de generaciones.properties del classpath (sobrescribible con -Dgeneracion.XXX=...),
+ * así una generación nueva no exige tocar código, y se precalcula una tabla número → región:
+ * regionOf es un acceso a un array, sin parsear ni recorrer rangos.
+ * Los números de Pokédex tienen 3 dígitos: un rango que pasa de 999 se recorta a 999.
+ */
+public final class Generaciones {
+
+    private static final String CONFIG = "generaciones.properties";
+    private static final String PREFIX = "generacion.";
+    private static final int MAX_NUMBER = 999;
+
+    private static Generaciones shared;
+
+    /**
+     * Números de Pokédex de una región, ambos incluidos (ya recortados a 0 .. 999).
+     */
+    public record Rango(int desde, int hasta) {
+        public String desdeId() { return IdFormats.decodePokedexNumber(desde); }
+        public String hastaId() { return IdFormats.decodePokedexNumber(hasta); }
+    }
+
+    private final Region[] byNumber = new Region[MAX_NUMBER + 1];
+    private final Map<Region, Rango> rangos = new EnumMap<>(Region.class);
+    private final Map<Region, List<String>> numeros = new EnumMap<>(Region.class);
+
+    /**
+     * Catálogo a partir de propiedades generacion.REGION=desde-hasta. Las regiones sin línea no tienen
+     * ningún número; dos rangos que se solapan son un error.
+     */
+    public Generaciones(Properties props) {
+        for (Region region : Region.values()) {
+            String value = props.getProperty(PREFIX + region.name());
+            if (value == null || value.isBlank()) continue;
+
+            Rango rango = parse(region, value.trim());
+            if (rango == null) continue;   // Empieza más allá del 999: no hay números de 3 dígitos
+
+            List<String> list = new ArrayList<>(rango.hasta() - rango.desde() + 1);
+            for (int n = rango.desde(); n <= rango.hasta(); n++) {
+                if (byNumber[n] != null) {
+                    throw new IllegalArgumentException("Las generaciones " + byNumber[n] + " y " + region
+                            + " se solapan en el nº " + IdFormats.decodePokedexNumber(n));
+                }
+                byNumber[n] = region;
+                list.add(IdFormats.decodePokedexNumber(n));
+            }
+            rangos.put(region, rango);
+            numeros.put(region, Collections.unmodifiableList(list));
+        }
+    }
+
+    /**
+     * Catálogo compartido, cargado de generaciones.properties la primera vez que se pide.
+     */
+    public static synchronized Generaciones shared() {
+        if (shared == null) shared = new Generaciones(loadConfig());
+        return shared;
+    }
+
+    private static Properties loadConfig() {
+        Properties props = new Properties();
+
+        try (InputStream in = Generaciones.class.getClassLoader().getResourceAsStream(CONFIG)) {
+            if (in != null) props.load(in);
+        } catch (IOException e) {
+            throw new RuntimeException("Error leyendo " + CONFIG + ": " + e.getMessage(), e);
+        }
+
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith(PREFIX)) props.setProperty(key, System.getProperty(key));
+        }
+        return props;
+    }
+
+    private static Rango parse(Region region, String value) {
+        int dash = value.indexOf('-');
+        try {
+            int desde = Integer.parseInt(value.substring(0, dash).trim());
+            int hasta = Integer.parseInt(value.substring(dash + 1).trim());
+            if (desde < 0 || hasta < desde) throw new NumberFormatException();
+            if (desde > MAX_NUMBER) return null;
+            return new Rango(desde, Math.min(hasta, MAX_NUMBER));
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Rango no válido para " + PREFIX + region.name()
+                    + " (debe ser desde-hasta, ej: 1-151): " + value);
+        }
+    }
+
+    /**
+     * Región del número de Pokédex, o null si no pertenece a ninguna generación.
+     */
+    public Region regionOf(String pokedexNumber) {
+        return byNumber[IdFormats.encodePokedexNumber(pokedexNumber)];
+    }
+
+    public boolean perteneceA(Region region, String pokedexNumber) {
+        return regionOf(pokedexNumber) == region;
+    }
+
+    /**
+     * Rango de números de la región, o null si no tiene ninguno.
+     */
+    public Rango rangoOf(Region region) {
+        return rangos.get(region);
+    }
+
+    /**
+     * Todos los números de Pokédex de la región en orden (precalculados, no se pueden modificar).
+     */
+    public List<String> numerosDe(Region region) {
+        return numeros.getOrDefault(region, List.of());
+    }
+}
@@ -0,0 +1,114 @@
+package es.pokedex.domain;
+
+/**
+ * Comprobación de los formatos de ID sin expresiones regulares: recorren los caracteres
+ * y no crean ningún objeto (String.matches compila un Pattern en cada llamada, y los constructores
+ * se llaman una vez por entidad al cargar un fichero).
+ */
+public final class IdFormats {
+
+    // Letra de control del DNI: posición = número % 23
+    private static final String DNI_LETTERS = "TRWAGMYFPDXBNJZSQVHLCKE";
+
+    private IdFormats() {}
+
+    /**
+     * Número de Pokédex: exactamente 3 dígitos (ej. 025).
+     */
+    public static boolean isPokedexNumber(String s) {
+        return s != null && s.length() == 3 && digits(s, 0, 3);
+    }
+
+    /**
+     * ID de movimiento: 2 mayúsculas + 4 dígitos (ej. TH1023).
+     */
+    public static boolean isMovimientoId(String s) {
+        return s != null && s.length() == 6 && upper(s.charAt(0)) && upper(s.charAt(1)) && digits(s, 2, 6);
+    }
+
+    /**
+     * Formato de DNI: 8 dígitos + una mayúscula (ej. 65788344F). No comprueba la letra de control.
+     */
+    public static boolean isDniFormat(String s) {
+        return s != null && s.length() == 9 && digits(s, 0, 8) && upper(s.charAt(8));
+    }
+
+    /**
+     * DNI con formato correcto y letra de control correcta.
+     */
+    public static boolean isDni(String s) {
+        return isDniFormat(s) && s.charAt(8) == dniLetter(s);
+    }
+
+    /**
+     * Letra de control que corresponde a los 8 dígitos de un DNI con formato correcto.
+     */
+    public static char dniLetter(String dni) {
+        int number = 0;
+        for (int i = 0; i < 8; i++) number = number * 10 + (dni.charAt(i) - '0');
+        return DNI_LETTERS.charAt(number % 23);
+    }
+
+    // ---------------- Codificación compacta ----------------
+
+    // Los 1000 números de Pokédex posibles, creados una sola vez: decodificar no crea objetos
+    private static final String[] POKEDEX_NUMBERS = new String[1000];
+
+    static {
+        for (int i = 0; i < POKEDEX_NUMBERS.length; i++) {
+            POKEDEX_NUMBERS[i] = new String(new char[]{
+                    (char) ('0' + i / 100), (char) ('0' + i / 10 % 10), (char) ('0' + i % 10)});
+        }
+    }
+
+    /**
+     * Número de Pokédex como short (0 .. 999).
+     */
+    public static short encodePokedexNumber(String s) {
+        if (!isPokedexNumber(s))
+            throw new IllegalArgumentException("pokedexNumber debe tener 3 dig, ej: 025: " + s);
+        return (short) ((s.charAt(0) - '0') * 100 + (s.charAt(1) - '0') * 10 + (s.charAt(2) - '0'));
+    }
+
+    /**
+     * Inverso de encodePokedexNumber. Devuelve siempre la misma instancia para el mismo número.
+     */
+    public static String decodePokedexNumber(int code) {
+        return POKEDEX_NUMBERS[code];
+    }
+
+    /**
+     * ID de movimiento empaquetado en un int: (letra1 * 26 + letra2) * 10000 + número (0 .. 6.759.999).
+     */
+    public static int encodeMovimientoId(String s) {
+        if (!isMovimientoId(s))
+            throw new IllegalArgumentException("id movimiento debe ser 2 MAYUSC + 4 DIGIT, ej: TH1023: " + s);
+        int number = 0;
+        for (int i = 2; i < 6; i++) number = number * 10 + (s.charAt(i) - '0');
+        return ((s.charAt(0) - 'A') * 26 + (s.charAt(1) - 'A')) * 10_000 + number;
+    }
+
+    /**
+     * Inverso de encodeMovimientoId.
+     */
+    public static String decodeMovimientoId(int code) {
+        int letters = code / 10_000;
+        int number = code % 10_000;
+        return new String(new char[]{
+                (char) ('A' + letters / 26), (char) ('A' + letters % 26),
+                (char) ('0' + number / 1000), (char) ('0' + number / 100 % 10),
+                (char) ('0' + number / 10 % 10), (char) ('0' + number % 10)});
+    }
+
+    private static boolean digits(String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+
+    private static boolean upper(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+}
@@ -21,7 +21,7 @@ public class Movimiento {
                       @JsonProperty("potencia") int potencia) {
 
         // Valida ID del movimiento (formato AA0000)
-        if (id == null || !id.matches("[A-Z]{2}\\d{4}"))
+        if (!IdFormats.isMovimientoId(id))
             throw new IllegalArgumentException("id movimiento debe ser 2 MAYUSC + 4 DIGIT, ej: TH1023");
 
         // Valida nombre no vacío
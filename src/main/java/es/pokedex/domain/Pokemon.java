@@ -2,15 +2,13 @@ package es.pokedex.domain;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 
 public class Pokemon {
-    private final String pokedexNumber;          // ID único del Pokémon (3 dígitos, ej: "025")
+    private final short pokedexNumber;           // ID único del Pokémon (3 dígitos, ej: "025"), como número
     private String nombre;                       // Nombre del Pokémon
     private TipoPokemon tipo;                    // Tipo elemental (enum)
-    private List<String> movimientoIds = new ArrayList<>(); // IDs de movimientos asociados
+    private final List<String> movimientoIds;    // IDs de movimientos asociados (empaquetados en int[])
 
     /**
      * Constructor principal usado por Jackson.
@@ -23,7 +21,7 @@ public class Pokemon {
                    @JsonProperty("movimientoIds") List<String> movimientoIds) {
 
         // Valida que el ID tenga exactamente 3 dígitos
-        if (pokedexNumber == null || !pokedexNumber.matches("\\d{3}"))
+        if (!IdFormats.isPokedexNumber(pokedexNumber))
             throw new IllegalArgumentException("pokedexNumber debe tener 3 dig, ej: 025");
 
         // Valida nombre no vacío
@@ -34,12 +32,12 @@ public class Pokemon {
         if (tipo == null)
             throw new IllegalArgumentException("tipo requerido");
 
-        this.pokedexNumber = pokedexNumber;
+        this.pokedexNumber = IdFormats.encodePokedexNumber(pokedexNumber);
         this.nombre = nombre;
         this.tipo = tipo;
 
-        // Si desde JSON viene una lista, la usamos; si no, dejamos la lista vacía
-        if (movimientoIds != null) this.movimientoIds = movimientoIds;
+        // Se copia la lista que venga (de JSON o de la app) a la representación compacta; si no hay, vacía
+        this.movimientoIds = new CompactIdList.MovimientoIds(movimientoIds);
     }
 
     /**
@@ -47,11 +45,11 @@ public class Pokemon {
      * Inicia la lista de movimientos vacía.
      */
     public Pokemon(String pokedexNumber, String nombre, TipoPokemon tipo) {
-        this(pokedexNumber, nombre, tipo, new ArrayList<>());
+        this(pokedexNumber, nombre, tipo, null);
     }
 
     // Getters y setters con validación
-    public String getPokedexNumber() { return pokedexNumber; }
+    public String getPokedexNumber() { return IdFormats.decodePokedexNumber(pokedexNumber); }
 
     public String getNombre() { return nombre; }
     public void setNombre(String nombre) {
@@ -85,9 +83,9 @@ public class Pokemon {
         if (this == o) return true;
         if (!(o instanceof Pokemon)) return false;
         Pokemon p = (Pokemon) o;
-        return pokedexNumber.equals(p.pokedexNumber);
+        return pokedexNumber == p.pokedexNumber;
     }
 
     @Override
-    public int hashCode() { return Objects.hash(pokedexNumber); }
+    public int hashCode() { return Short.hashCode(pokedexNumber); }
 }
@@ -0,0 +1,1254 @@
+package es.pokedex.repository;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import es.pokedex.util.BinarySnapshot;
+import es.pokedex.util.DataFileLock;
+import es.pokedex.util.JsonFileStore;
+import es.pokedex.util.JsonJournal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Base común de los repositorios JSON.
+ * Mantiene en memoria un mapa ID → entidad que se carga una sola vez del fichero
+ * y se sincroniza con él mediante escritura directa (write-through) en cada cambio.
+ * Si el fichero se modifica desde fuera (cambia su fecha, su tamaño o su sello de versión) se vuelve a leer.
+ *
+ * En modo journal los cambios no reescriben el fichero: se añaden a un log (fichero.json.log)
+ * y un compactador en segundo plano vuelca periódicamente el estado al fichero JSON.
+ * Al arrancar se lee el JSON y se reaplica el log encima.
+ *
+ * Con un Codec el fichero es un snapshot binario (BinarySnapshot) en lugar de JSON. Mientras la caché
+ * no se ha cargado (y sin log), findById, existsById y count se responden directamente sobre el
+ * fichero mapeado, sin deserializarlo entero.
+ *
+ * Concurrencia:
+ * - La caché y los índices se protegen con un StampedLock: los lectores comparten el lock de lectura
+ *   y los escritores solo toman el de escritura para cambiar la memoria (microsegundos).
+ * - La reescritura del fichero se hace fuera de ese lock, de una en una; si mientras tanto llegan
+ *   más cambios, la siguiente escritura los vuelca todos juntos.
+ * - Los escritores se serializan por ID (franjas de locks por hash del ID): dos cambios sobre la misma
+ *   entidad se aplican en orden; sobre entidades distintas no se esperan entre sí.
+ * - Una transacción (UnitOfWork) conserva los locks de los IDs que toca hasta que termina. Sus cambios
+ *   quedan aparte, en la propia transacción: solo los ve su hilo (se aplican a la caché de forma provisional
+ *   mientras lee, con el lock de escritura) y los demás leen el valor confirmado. Al terminar se aplican
+ *   a la caché y se escriben.
+ * - Las entidades de la caché no se modifican nunca en sitio (se sustituyen por copias),
+ *   así que se pueden serializar sin el lock tomado.
+ *
+ * Varios procesos sobre el mismo fichero (DataFileLock):
+ * - Cada escritura del fichero o del log se hace con el lock del sistema (fichero.json.lock) y sube
+ *   el sello de versión. Si al ir a escribir el sello no es el que se leyó, otro proceso escribió
+ *   entre medias: se recarga el fichero y se reaplican encima los cambios propios aún no escritos
+ *   (gana el último cambio de cada entidad, no el último fichero completo).
+ * - update() lee, modifica y escribe con ese lock tomado: no pierde cambios ni entre procesos.
+ * - Un WatchService avisa cuando cambian el fichero o el sello; las lecturas solo comprueban el disco
+ *   tras un aviso, no en cada llamada.
+ */
+public abstract class AbstractJsonRepository<T> implements IRepositorioAsync<T, String>,
+        IRepositorioTransaccional<T, String>, AutoCloseable {
+
+    // Registros en el log a partir de los cuales se compacta sin esperar al ciclo periódico
+    private static final int COMPACT_THRESHOLD = 1000;
+    private static final long COMPACT_PERIOD_SECONDS = 30;
+
+    // Nº de franjas de locks por ID para los escritores
+    private static final int STRIPES = 64;
+    // Espera máxima por un lock de escritor pedido fuera de orden (ver acquire)
+    private static final long LOCK_TIMEOUT_SECONDS = 10;
+
+    // Lock de escritor más alto en el orden global (fichero, franja) que tiene tomado cada hilo
+    private static final ThreadLocal<LockKey> HIGHEST = new ThreadLocal<>();
+
+    // Hilo compartido por todos los repositorios para compactar logs. Una tarea cancelada sale de la cola:
+    // si no, el planificador seguiría apuntando al repositorio cerrado
+    private static final ScheduledThreadPoolExecutor COMPACTOR = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread t = new Thread(r, "json-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        COMPACTOR.setRemoveOnCancelPolicy(true);
+    }
+
+    protected final Path path;                                 // Ruta al fichero JSON
+    private final Path lockOrder;                              // Ruta normalizada: orden de los locks entre ficheros
+    protected final JsonFileStore store = new JsonFileStore(); // Utilidad para cargar/guardar JSON
+    private final TypeReference<List<T>> ref;
+    private final BinarySnapshot.Codec<T> codec;               // null en formato JSON
+    private final JsonJournal<T> journal;                      // null en modo fichero completo
+    private ScheduledFuture<?> compaction;                     // Compactación periódica (null hasta la primera carga)
+    private volatile BinarySnapshot<T> mapped;                 // Snapshot binario para lecturas sin caché
+
+    // Modelo residente: conserva el orden del fichero para reescribirlo igual
+    private final Map<String, T> cache = new LinkedHashMap<>();
+    // Las mismas IDs ordenadas, para los listados paginados y por clave
+    private final NavigableSet<String> sortedIds = new TreeSet<>();
+    private volatile FileTime lastModified;   // Fecha del fichero cuando se cargó/escribió por última vez
+    private volatile long lastSize = -1;      // Tamaño del fichero en ese mismo momento
+    private volatile long knownStamp = -1;    // Sello de versión del fichero en ese mismo momento
+
+    private final StampedLock lock = new StampedLock();              // Caché e índices
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private volatile long version;           // Cambios aplicados en memoria
+    private volatile long writtenVersion;    // Cambios ya volcados al fichero (o al log)
+    // Valor anterior de cada ID que cambia mientras se aplica un cambio, para deshacerlo si no llega a disco
+    private Map<String, T> undo;
+    // Con los cambios de una transacción aplicados de forma provisional (withStaged): orden de la caché
+    // antes de la primera baja, para dejarla después exactamente como estaba
+    private boolean provisional;
+    private List<String> orderBefore;
+    // Cambios en memoria aún no escritos (sin log), para reaplicarlos si otro proceso escribió antes
+    private final List<JsonJournal.Entry<T>> unwritten = new ArrayList<>();
+
+    // Transacción (UnitOfWork) del hilo actual sobre este repositorio, y las que ya aplicaron sus cambios
+    // a la caché pero aún no los tienen en el fichero (sin log; esta lista se toca con el lock de escritura)
+    private final ThreadLocal<Tx<T>> tx = new ThreadLocal<>();
+    private final List<Tx<T>> activeTxs = new ArrayList<>();
+
+    private volatile boolean closed;
+
+    // Una escritura del fichero a la vez, en este y en los demás procesos
+    private final DataFileLock shared;
+    private final Runnable onFileEvent;                 // Se conserva: DataFileLock lo guarda como referencia débil
+    private final AtomicLong fileEvents = new AtomicLong();
+    private volatile long checkedEvents = -1;           // Avisos ya comprobados contra el disco
+    private final boolean watched;                      // false: comprobar el disco en cada lectura
+
+    protected AbstractJsonRepository(Path path, TypeReference<List<T>> ref) {
+        this(path, ref, false);
+    }
+
+    /**
+     * @param journaled true para guardar los cambios en un log con compactación en segundo plano
+     */
+    protected AbstractJsonRepository(Path path, TypeReference<List<T>> ref, boolean journaled) {
+        this(path, ref, null, journaled);
+    }
+
+    /**
+     * @param codec     codificación del snapshot binario, o null para guardar en JSON
+     * @param journaled true para guardar los cambios en un log con compactación en segundo plano
+     */
+    protected AbstractJsonRepository(Path path, TypeReference<List<T>> ref, BinarySnapshot.Codec<T> codec,
+                                     boolean journaled) {
+        this.path = path;
+        this.lockOrder = path.toAbsolutePath().normalize();
+        this.ref = ref;
+        this.codec = codec;
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new ReentrantLock();
+        this.shared = DataFileLock.of(path);
+        this.onFileEvent = fileEvents::incrementAndGet;
+        this.watched = shared.watch(onFileEvent);
+
+        if (journaled) {
+            this.journal = new JsonJournal<>(path.resolveSibling(path.getFileName() + ".log"), ref);
+        } else {
+            this.journal = null;
+        }
+    }
+
+    /**
+     * Devuelve el ID de la entidad (clave del mapa).
+     */
+    protected abstract String idOf(T entity);
+
+    /**
+     * Copia defensiva: lo que sale del repositorio no comparte estado con la caché.
+     */
+    protected abstract T copyOf(T entity);
+
+    // ---------------- Índices secundarios (las subclases los mantienen) ----------------
+
+    /**
+     * Una entidad entra en la caché. Se llama siempre con el lock de escritura tomado.
+     */
+    protected void indexAdd(T entity) {}
+
+    /**
+     * Una entidad sale de la caché (borrado o antes de sustituirla).
+     */
+    protected void indexRemove(T entity) {}
+
+    /**
+     * La caché se vacía entera.
+     */
+    protected void indexClear() {}
+
+
+    // ---------------- Gestión de la caché ----------------
+
+    /**
+     * Recarga la caché si el fichero cambió desde fuera (o no se ha cargado aún).
+     * Se llama sin ningún lock tomado; la recarga se hace con el de escritura.
+     */
+    private void refreshIfStale() {
+        if (!isStale()) return;
+        long stamp = lock.writeLock();
+        try {
+            if (isStale()) reload();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Lee el fichero (y reaplica el log) sobre una caché vacía y vuelve a aplicar encima los cambios
+     * propios aún no escritos y los de las transacciones en curso. Con el lock de escritura tomado.
+     */
+    private void reload() {
+        checkedEvents = fileEvents.get();
+        knownStamp = shared.version();   // Antes de leer: si alguien escribe mientras, se verá como cambio
+        List<T> list = readFile();
+        mapped = null;
+        cacheClear();
+        for (T e : list) cachePut(e);
+        stamp();
+
+        if (journal != null) {
+            journal.sync();   // Lo encolado antes de recargar tiene que estar en el fichero
+            journal.replay(this::apply);
+            scheduleCompaction();
+        }
+        if (activeTxs.isEmpty()) {
+            unwritten.forEach(this::apply);
+            return;
+        }
+
+        // Los valores recién leídos pasan a ser los originales de cada transacción que se está escribiendo
+        Set<JsonJournal.Entry<T>> inTx = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Tx<T> t : activeTxs) inTx.addAll(t.changes);
+        for (JsonJournal.Entry<T> entry : unwritten) {
+            if (!inTx.contains(entry)) apply(entry);
+        }
+        for (Tx<T> t : activeTxs) {
+            t.originals.clear();
+            undo = t.originals;
+            t.changes.forEach(this::apply);
+        }
+        undo = null;
+    }
+
+    /**
+     * Programa la compactación periódica la primera vez que se carga la caché (con log, nada llega al log
+     * sin cargarla antes). No se hace en el constructor: la tarea podría ejecutarse sobre una subclase
+     * aún sin construir.
+     */
+    private synchronized void scheduleCompaction() {
+        if (compaction != null || closed) return;
+        compaction = COMPACTOR.scheduleWithFixedDelay(this::compact,
+                COMPACT_PERIOD_SECONDS, COMPACT_PERIOD_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Ejecuta una lectura de la caché con el lock de lectura, que comparten todos los lectores.
+     * El hilo de una transacción con cambios lee con ellos aplicados (withStaged), con el de escritura.
+     */
+    private <R> R read(Supplier<R> body) {
+        refreshIfStale();
+        Tx<T> t = staged();
+        if (t != null) {
+            long stamp = lock.writeLock();
+            try {
+                return withStaged(t, body);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        long stamp = lock.readLock();
+        try {
+            return body.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Reaplica un registro del log sobre la caché.
+     */
+    private void apply(JsonJournal.Entry<T> entry) {
+        switch (entry.op()) {
+            case PUT -> cachePut(entry.value());
+            case DELETE -> cacheRemove(entry.id());
+            case CLEAR -> cacheClear();
+        }
+    }
+
+    // Todas las modificaciones de la caché pasan por aquí para mantener los índices
+
+    private void cachePut(T entity) {
+        T old = cache.put(idOf(entity), entity);
+        remember(idOf(entity), old);
+        if (old != null) indexRemove(old);
+        else sortedIds.add(idOf(entity));
+        indexAdd(entity);
+    }
+
+    private boolean cacheRemove(String id) {
+        if (!cache.containsKey(id)) return false;
+        keepOrder();
+        T old = cache.remove(id);
+        remember(id, old);
+        sortedIds.remove(id);
+        indexRemove(old);
+        return true;
+    }
+
+    private void cacheClear() {
+        keepOrder();
+        if (undo != null) cache.forEach(this::remember);
+        cache.clear();
+        sortedIds.clear();
+        indexClear();
+    }
+
+    // Con undo activo, apunta el valor que tenía el ID antes del primer cambio (null: no existía)
+    private void remember(String id, T old) {
+        if (undo != null && !undo.containsKey(id)) undo.put(id, old);
+    }
+
+    // En withStaged, antes de la primera baja: restore vuelve a poner al final lo que se quitó
+    private void keepOrder() {
+        if (provisional && orderBefore == null) orderBefore = new ArrayList<>(cache.keySet());
+    }
+
+    /**
+     * Deja en la caché los valores apuntados por remember. Con el lock de escritura tomado.
+     */
+    private void restore(Map<String, T> previous) {
+        previous.forEach((id, old) -> {
+            if (old == null) cacheRemove(id);
+            else cachePut(old);
+        });
+    }
+
+    /**
+     * Dice si hay que recargar la caché. Solo mira el disco si llegó un aviso del WatchService
+     * desde la última comprobación (o siempre, si el directorio no se puede vigilar).
+     * Mientras hay cambios propios sin volcar el fichero no se considera cambiado desde fuera:
+     * esos cambios se reconcilian al escribir (ver flush).
+     */
+    private boolean isStale() {
+        if (lastSize < 0) return true;
+        if (writtenVersion < version) return false;
+
+        long events = fileEvents.get();
+        if (watched && events == checkedEvents) return false;
+        boolean changed = changedOnDisk();
+        if (!changed) checkedEvents = events;   // Los avisos eran de nuestras propias escrituras
+        return changed;
+    }
+
+    /**
+     * Compara sello de versión, fecha y tamaño del fichero con los de la última carga/escritura.
+     * Fecha y tamaño detectan también cambios hechos a mano, que no suben el sello.
+     */
+    private boolean changedOnDisk() {
+        if (shared.version() != knownStamp) return true;
+        try {
+            if (!Files.exists(path)) return true;
+            return !Files.getLastModifiedTime(path).equals(lastModified) || Files.size(path) != lastSize;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Con el lock entre procesos tomado: si otro proceso escribió desde la última carga, recarga la caché
+     * (que reaplica encima los cambios propios aún no escritos). Así la siguiente escritura parte del
+     * fichero actual en lugar de pisarlo.
+     */
+    private void catchUp() {
+        if (lastSize >= 0 && !changedOnDisk()) return;
+        long stamp = lock.writeLock();
+        try {
+            reload();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Apunta la fecha y el tamaño actuales del fichero.
+     */
+    private void stamp() {
+        try {
+            lastModified = Files.getLastModifiedTime(path);
+            lastSize = Files.size(path);
+        } catch (IOException e) {
+            lastSize = -1;
+        }
+    }
+
+    /**
+     * Escribe la lista en el fichero en el formato del repositorio y sube el sello de versión.
+     * Con el lock entre procesos tomado.
+     */
+    private void writeFile(List<T> list) {
+        if (codec == null) store.writeList(path, list);
+        else BinarySnapshot.write(path, list, codec);
+        knownStamp = shared.bump();
+        stamp();
+    }
+
+    /**
+     * Lee el fichero entero en el formato del repositorio. Si no existe se crea vacío.
+     */
+    private List<T> readFile() {
+        if (codec == null) return store.readList(path, ref);
+        if (!Files.exists(path)) {
+            BinarySnapshot.write(path, List.of(), codec);
+            return List.of();
+        }
+        return BinarySnapshot.open(path, codec).readAll();
+    }
+
+    /**
+     * Snapshot binario mapeado para responder sin cargar la caché. Solo en formato binario, sin log
+     * y mientras la caché no se ha cargado; si no, null. Se vuelve a mapear si el fichero cambia.
+     */
+    private BinarySnapshot<T> direct() {
+        if (codec == null || journal != null || lastSize >= 0 || !Files.exists(path)) return null;
+        BinarySnapshot<T> snapshot = mapped;
+        if (snapshot == null || !snapshot.isCurrent()) mapped = snapshot = BinarySnapshot.open(path, codec);
+        return snapshot;
+    }
+
+    // ---------------- Escritura ----------------
+
+    /**
+     * Ejecuta body con los locks de escritor de esos IDs (todos si ids es null), tomados en orden
+     * para no bloquearse entre escritores. Dos escritores solo se esperan si comparten franja.
+     * Dentro de una transacción los locks no se sueltan al terminar body sino al terminar la transacción.
+     */
+    private <R> R serialized(Collection<String> ids, Supplier<R> body) {
+        SortedSet<Integer> wanted = new TreeSet<>();
+        if (ids == null) {
+            for (int i = 0; i < STRIPES; i++) wanted.add(i);
+        } else {
+            for (String id : ids) wanted.add(stripeOf(id));
+        }
+        Tx<T> t = tx.get();
+        if (t != null) {
+            wanted.removeAll(t.held);
+            t.held.addAll(acquire(wanted));
+            return body.get();
+        }
+        LockKey before = HIGHEST.get();
+        List<Integer> taken = acquire(wanted);
+        try {
+            return body.get();
+        } finally {
+            release(taken, before);
+        }
+    }
+
+    private static int stripeOf(String id) {
+        return Math.floorMod(Objects.hashCode(id), STRIPES);
+    }
+
+    /**
+     * Toma esas franjas en orden y las devuelve. Si el hilo ya tiene un lock posterior en el orden global
+     * (de una transacción, en este u otro fichero) no espera más de LOCK_TIMEOUT_SECONDS: al pasarse suelta
+     * las que tomó y lanza IllegalStateException, y la transacción se deshace en lugar de quedarse
+     * esperando en círculo con otra.
+     */
+    private List<Integer> acquire(SortedSet<Integer> wanted) {
+        LockKey before = HIGHEST.get();
+        List<Integer> taken = new ArrayList<>(wanted.size());
+        try {
+            for (int i : wanted) {
+                LockKey key = new LockKey(lockOrder, i);
+                LockKey top = HIGHEST.get();
+                if (top == null || key.compareTo(top) > 0) {
+                    stripes[i].lock();
+                    HIGHEST.set(key);
+                } else if (!stripes[i].tryLock(LOCK_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("Tiempo de espera agotado por un lock de escritor de " + path
+                            + " (posible interbloqueo entre transacciones)");
+                }
+                taken.add(i);
+            }
+            return taken;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            release(taken, before);
+            throw new IllegalStateException("Interrumpido esperando un lock de escritor de " + path, e);
+        } catch (RuntimeException e) {
+            release(taken, before);
+            throw e;
+        }
+    }
+
+    /**
+     * Suelta esas franjas y deja como lock más alto del hilo el que tenía antes de tomarlas.
+     */
+    private void release(Collection<Integer> taken, LockKey before) {
+        for (int i : taken) stripes[i].unlock();
+        if (before == null) HIGHEST.remove();
+        else HIGHEST.set(before);
+    }
+
+    /**
+     * Posición de un lock de escritor en el orden global: primero por fichero y luego por franja.
+     */
+    private record LockKey(Path file, int stripe) implements Comparable<LockKey> {
+        @Override
+        public int compareTo(LockKey o) {
+            int c = file.compareTo(o.file);
+            return c != 0 ? c : Integer.compare(stripe, o.stripe);
+        }
+    }
+
+    // Resultado de un cambio ya añadido al log y el fsync que falta por esperar (null si no cambió nada)
+    private record Appended<R>(R result, CompletableFuture<Void> durable) {}
+
+    /**
+     * Aplica un cambio en memoria con el lock de escritura y lo hace persistente fuera de él.
+     * change modifica la caché y apunta en la lista los registros de lo que ha cambiado.
+     * Sin log el fichero se reescribe después (junto con los cambios de otros escritores que lleguen
+     * mientras); con log se añade un registro atómico y se espera a que esté en disco.
+     * Con log, el lock entre procesos solo cubre ponerse al día, añadir el registro al fichero y subir
+     * el sello; el fsync se espera fuera, así los escritores que coinciden comparten uno (group commit).
+     * Si el registro no llega al log se devuelven a la caché los valores anteriores y se propaga el error.
+     */
+    private <R> R commit(Function<List<JsonJournal.Entry<T>>, R> change) {
+        Tx<T> t = tx.get();
+        if (t != null) return stage(t, change);
+        if (journal != null) {
+            Map<String, T> previous = new HashMap<>();
+            Appended<R> appended = shared.locked(() -> {
+                catchUp();
+                List<JsonJournal.Entry<T>> changes = new ArrayList<>();
+                R r;
+                long stamp = lock.writeLock();
+                try {
+                    undo = previous;
+                    r = change.apply(changes);
+                    if (changes.isEmpty()) return new Appended<>(r, null);
+                    version++;
+                } finally {
+                    undo = null;
+                    lock.unlockWrite(stamp);
+                }
+                CompletableFuture<Void> durable;
+                try {
+                    durable = journal.appendAll(changes);
+                } catch (RuntimeException e) {
+                    rollback(previous);
+                    throw e;
+                }
+                // El registro ya está en el fichero: una recarga lo reaplica
+                writtenVersion = version;
+                knownStamp = shared.bump();
+                return new Appended<>(r, durable);
+            });
+            if (appended.durable() != null) {
+                try {
+                    await(appended.durable());
+                } catch (RuntimeException e) {
+                    // Fsync fallido: el log ya quitó el registro (ver JsonJournal.appendAll)
+                    rollback(previous);
+                    announceCut();
+                    throw e;
+                }
+                if (journal.size() >= COMPACT_THRESHOLD) COMPACTOR.execute(this::compact);
+            }
+            return appended.result();
+        }
+
+        refreshIfStale();
+        List<JsonJournal.Entry<T>> changes = new ArrayList<>();
+        R result;
+        long v;
+        long stamp = lock.writeLock();
+        try {
+            result = change.apply(changes);
+            if (changes.isEmpty()) return result;
+            v = ++version;
+            unwritten.addAll(changes);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        flush(v);
+        return result;
+    }
+
+    /**
+     * Deshace en la caché un cambio que no llegó al log: vuelve a los valores anteriores,
+     * que son los que hay en disco.
+     */
+    private void rollback(Map<String, T> previous) {
+        long stamp = lock.writeLock();
+        try {
+            restore(previous);
+            writtenVersion = ++version;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * El log quitó registros tras un fsync fallido. Otro proceso puede haberlos leído ya: se sube el sello
+     * para que recargue (este también lo hará, así no se salta lo que otros escribieran entre medias).
+     */
+    private void announceCut() {
+        shared.locked(shared::bump);
+    }
+
+    /**
+     * commit dentro de una transacción: el cambio se calcula sobre la caché con los cambios anteriores de la
+     * transacción aplicados y solo se apuntan sus registros; la caché se queda con los valores confirmados.
+     * Se aplica y se escribe al terminar (endTransaction), así cada fichero se escribe una sola vez.
+     */
+    private <R> R stage(Tx<T> t, Function<List<JsonJournal.Entry<T>>, R> change) {
+        refreshIfStale();
+        long stamp = lock.writeLock();
+        try {
+            return withStaged(t, () -> {
+                List<JsonJournal.Entry<T>> changes = new ArrayList<>();
+                R result = change.apply(changes);
+                t.changes.addAll(changes);
+                return result;
+            });
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Transacción del hilo actual si ya tiene cambios en este repositorio; si no, null.
+     */
+    private Tx<T> staged() {
+        Tx<T> t = tx.get();
+        return t == null || t.changes.isEmpty() ? null : t;
+    }
+
+    /**
+     * Ejecuta body con los cambios de la transacción aplicados a la caché y después la deja como estaba
+     * (valores y orden). Con el lock de escritura tomado: ningún otro hilo llega a ver esos cambios.
+     */
+    private <R> R withStaged(Tx<T> t, Supplier<R> body) {
+        Map<String, T> previous = new HashMap<>();
+        undo = previous;
+        provisional = true;
+        try {
+            t.changes.forEach(this::apply);
+            return body.get();
+        } finally {
+            undo = null;
+            provisional = false;
+            restore(previous);
+            if (orderBefore != null) {
+                reorder(orderBefore);
+                orderBefore = null;
+            }
+        }
+    }
+
+    /**
+     * Vuelve a colocar las entidades de la caché en ese orden (restore añade al final lo que se quitó).
+     */
+    private void reorder(List<String> order) {
+        Map<String, T> current = new HashMap<>(cache);
+        cache.clear();
+        for (String id : order) {
+            T e = current.get(id);
+            if (e != null) cache.put(id, e);
+        }
+    }
+
+    /**
+     * Se asegura de que el fichero contiene al menos la versión v de la caché.
+     * Si otro escritor ya volcó un estado posterior no hace nada (escrituras agrupadas).
+     * Antes de escribir se pone al día con lo que hayan escrito otros procesos (catchUp).
+     */
+    private void flush(long v) {
+        shared.locked(() -> {
+            if (writtenVersion >= v) return null;
+            catchUp();
+
+            List<T> list;
+            long current;
+            int written;
+            long stamp = lock.readLock();
+            try {
+                list = new ArrayList<>(cache.values());
+                current = version;
+                written = unwritten.size();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+
+            writeFile(list);
+
+            stamp = lock.writeLock();
+            try {
+                unwritten.subList(0, written).clear();
+                writtenVersion = current;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Espera a que un cambio sea persistente, devolviendo el error original si falla.
+     */
+    private static void await(CompletableFuture<Void> durable) {
+        try {
+            durable.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    private static <T> JsonJournal.Entry<T> put(String id, T value) {
+        return new JsonJournal.Entry<>(JsonJournal.Op.PUT, id, value);
+    }
+
+    /**
+     * Vuelca el estado actual al fichero y vacía el log.
+     * Durante el volcado se mantiene el lock de lectura: los lectores siguen, los escritores esperan
+     * (así nada entra en el log entre el volcado y el vaciado).
+     * Si se cae entre ambos pasos, al reaplicar el log se llega al mismo estado.
+     */
+    public void compact() {
+        if (journal == null || closed) return;
+
+        shared.locked(() -> {
+            catchUp();   // El log puede tener registros de otros procesos que aún no están en la caché
+            CompletableFuture<Void> truncated;
+            long stamp = lock.readLock();
+            try {
+                if (journal.size() == 0) return null;
+                writeFile(new ArrayList<>(cache.values()));
+                truncated = journal.truncate();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+            await(truncated);
+            return null;
+        });
+    }
+
+    /**
+     * Deja de compactar en segundo plano y cierra el log (su hilo escritor y su fichero).
+     * No compacta: para volcar el log al JSON antes de cerrar hay que llamar a compact().
+     * Sin log no hay nada que cerrar; con log, escribir después de cerrar falla.
+     */
+    @Override
+    public void close() {
+        if (journal == null) return;
+        synchronized (this) {
+            closed = true;
+            if (compaction != null) compaction.cancel(false);
+        }
+        journal.close();
+    }
+
+    // ---------------- Transacciones (UnitOfWork) ----------------
+
+    /**
+     * Transacción de un hilo sobre este repositorio: franjas que tiene tomadas hasta el final, cambios
+     * pendientes de confirmar y, cuando ya se han aplicado a la caché al terminar, el valor que tenía
+     * antes cada ID tocado (null si no existía).
+     */
+    private static final class Tx<T> {
+        final Set<Integer> held = new HashSet<>();
+        final List<JsonJournal.Entry<T>> changes = new ArrayList<>();
+        final Map<String, T> originals = new HashMap<>();
+        final LockKey highestBefore;   // Lock más alto del hilo al empezar
+
+        Tx(LockKey highestBefore) {
+            this.highestBefore = highestBefore;
+        }
+    }
+
+    /**
+     * Ejecuta work como una transacción sobre varios repositorios, una dentro de otra en el orden de la
+     * lista (UnitOfWork los ordena por ruta). Al terminar, cada uno escribe sus cambios de una vez;
+     * si work falla, ninguno escribe nada. Los locks de escritor de todos se sueltan al final, cuando ya
+     * han escrito todos: si no, otra transacción podría leer el valor confirmado de un repositorio y
+     * decidir con él antes de que se escriban los cambios que dependen de él en otro.
+     */
+    static <R> R inTransaction(List<AbstractJsonRepository<?>> repos, Supplier<R> work) {
+        List<Runnable> releases = new ArrayList<>();
+        try {
+            return nested(repos, work, releases);
+        } finally {
+            releases.forEach(Runnable::run);
+        }
+    }
+
+    private static <R> R nested(List<AbstractJsonRepository<?>> repos, Supplier<R> work, List<Runnable> releases) {
+        if (repos.isEmpty()) return work.get();
+        return repos.get(0).transaction(() -> nested(repos.subList(1, repos.size()), work, releases), releases);
+    }
+
+    /**
+     * Al empezar no se bloquea nada: cada escritura (y cada findByIdForUpdate) toma los locks de escritor
+     * de sus IDs y los conserva hasta que termina la unidad entera (los suelta inTransaction), así las
+     * transacciones y escritores sobre otras entidades siguen a la vez. Dentro, commit solo apunta los
+     * cambios en la transacción (stage), que únicamente ve este hilo; al final se aplican a la caché y se
+     * escriben con una sola reescritura del fichero o un solo grupo en el log. Si algo falla se devuelven
+     * a la caché los valores de antes. Los demás procesos no se bloquean durante la transacción: como con
+     * save, gana el último cambio escrito de cada entidad.
+     */
+    private <R> R transaction(Supplier<R> work, List<Runnable> releases) {
+        if (tx.get() != null) return work.get();   // Ya está dentro de la transacción
+
+        Tx<T> t = new Tx<>(HIGHEST.get());
+        tx.set(t);
+        boolean ok = false;
+        try {
+            R result = work.get();
+            tx.remove();
+            if (!t.changes.isEmpty()) endTransaction(t);
+            ok = true;
+            return result;
+        } finally {
+            tx.remove();
+            try {
+                if (!ok && !t.changes.isEmpty()) abortTransaction(t);
+            } finally {
+                releases.add(() -> release(t.held, t.highestBefore));
+            }
+        }
+    }
+
+    /**
+     * Aplica los cambios de la transacción a la caché y los escribe, con sus locks de escritor aún tomados.
+     * Sin log pasan a ser cambios sin escribir y se vuelca el fichero; con log se añaden como un grupo con
+     * el lock entre procesos y el fsync se espera fuera de él. Si falla, transaction los deshace.
+     */
+    private void endTransaction(Tx<T> t) {
+        if (journal == null) {
+            long v;
+            long stamp = lock.writeLock();
+            try {
+                activeTxs.add(t);
+                applyTransaction(t);
+                unwritten.addAll(t.changes);
+                v = ++version;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            flush(v);
+            stamp = lock.writeLock();
+            try {
+                activeTxs.remove(t);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            return;
+        }
+
+        CompletableFuture<Void> durable = shared.locked(() -> {
+            catchUp();
+            long stamp = lock.writeLock();
+            try {
+                applyTransaction(t);
+                version++;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            CompletableFuture<Void> appended = journal.appendAll(t.changes);
+            writtenVersion = version;
+            knownStamp = shared.bump();
+            return appended;
+        });
+        try {
+            await(durable);
+        } catch (RuntimeException e) {
+            announceCut();   // transaction deshace los cambios en la caché
+            throw e;
+        }
+        if (journal.size() >= COMPACT_THRESHOLD) COMPACTOR.execute(this::compact);
+    }
+
+    /**
+     * Aplica a la caché los cambios de la transacción apuntando en t.originals los valores de antes.
+     * Con el lock de escritura tomado.
+     */
+    private void applyTransaction(Tx<T> t) {
+        undo = t.originals;
+        try {
+            t.changes.forEach(this::apply);
+        } finally {
+            undo = null;
+        }
+    }
+
+    /**
+     * Deshace en la caché los cambios de la transacción que ya se aplicaron, devolviendo sus IDs a los
+     * valores de antes. Los demás IDs no se tocan (nadie más ha podido cambiarlos mientras: la transacción
+     * tenía sus locks).
+     */
+    private void abortTransaction(Tx<T> t) {
+        Set<JsonJournal.Entry<T>> mine = Collections.newSetFromMap(new IdentityHashMap<>());
+        mine.addAll(t.changes);
+        long stamp = lock.writeLock();
+        try {
+            activeTxs.remove(t);
+            unwritten.removeIf(mine::contains);   // Si el volcado final falló
+            restore(t.originals);
+            version++;
+            if (unwritten.isEmpty()) writtenVersion = version;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * findById con el lock de escritor de ese ID: dentro de una UnitOfWork se conserva hasta que termina,
+     * así otra transacción que quiera la misma entidad espera. Fuera de una transacción es un findById.
+     */
+    @Override
+    public T findByIdForUpdate(String id) {
+        return serialized(List.of(id), () -> findById(id));
+    }
+
+    @Override
+    public List<T> findAllByIdForUpdate(Iterable<String> ids) {
+        List<String> list = new ArrayList<>();
+        ids.forEach(list::add);
+        return serialized(list, () -> findAllById(list));
+    }
+
+    // ---------------- Ayudas para las subclases ----------------
+
+    /**
+     * Copia de todas las entidades, en el orden del fichero.
+     */
+    protected List<T> load() {
+        return read(() -> cache.values().stream().map(this::copyOf).collect(Collectors.toList()));
+    }
+
+    /**
+     * Ejecuta una consulta que usa los índices de la subclase, con la caché al día y el lock de lectura.
+     */
+    protected <R> R indexed(Supplier<R> query) {
+        return read(query);
+    }
+
+    /**
+     * Recarga la caché (y los índices) si el fichero cambió desde fuera.
+     * Para consultas que leen índices concurrentes sin tomar el lock.
+     */
+    protected void refresh() {
+        refreshIfStale();
+    }
+
+    /**
+     * Copias de las entidades con esos IDs (para usar dentro de indexed()).
+     */
+    protected List<T> copiesOf(Collection<String> ids) {
+        List<T> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            T e = cache.get(id);
+            if (e != null) result.add(copyOf(e));
+        }
+        return result;
+    }
+
+    /**
+     * Copias de las entidades con ID entre from y to (ambos incluidos), en orden de ID.
+     * Es un subSet del índice de IDs ordenadas: solo se visitan las del rango.
+     */
+    protected List<T> findIdRange(String from, String to) {
+        return read(() -> copiesOf(sortedIds.subSet(from, true, to, true)));
+    }
+
+    /**
+     * Modifica las entidades que cumplen el filtro y guarda una sola vez.
+     * El cambio se aplica sobre una copia que luego sustituye a la original, así los índices se actualizan.
+     * Devuelve cuántas entidades se modificaron.
+     */
+    protected int updateWhere(Predicate<T> filter, Consumer<T> change) {
+        return updateIndexed(() -> cache.values().stream().filter(filter).map(this::idOf).collect(Collectors.toList()),
+                change);
+    }
+
+    /**
+     * Como updateWhere, pero las entidades a modificar las da un índice de la subclase
+     * (se consulta con la caché al día y el lock tomado): solo se tocan las afectadas.
+     * Todos los cambios se guardan juntos de forma atómica (una escritura del fichero o un registro del log).
+     */
+    protected int updateIndexed(Supplier<? extends Collection<String>> ids, Consumer<T> change) {
+        while (true) {
+            // Se toman los locks de los IDs que da el índice ahora; si al aplicar el cambio el índice da
+            // alguno más (otro escritor lo cambió entre medias) se vuelve a empezar con los nuevos
+            List<String> candidates = read(() -> new ArrayList<>(ids.get()));
+            Set<Integer> covered = new HashSet<>();
+            for (String id : candidates) covered.add(stripeOf(id));
+            Integer updated = serialized(candidates, () -> commit(changes -> {
+                // Se copian los IDs: el índice cambia al ir sustituyendo las entidades
+                List<String> current = new ArrayList<>(ids.get());
+                for (String id : current) {
+                    if (!covered.contains(stripeOf(id))) return null;
+                }
+                for (String id : current) {
+                    T e = cache.get(id);
+                    if (e == null) continue;
+                    T copy = copyOf(e);
+                    change.accept(copy);
+                    cachePut(copy);
+                    changes.add(put(id, copy));
+                }
+                return changes.size();
+            }));
+            if (updated != null) return updated;
+        }
+    }
+
+    // ---------------- Implementación CRUD ----------------
+
+    /**
+     * Operaciones asíncronas en hilos virtuales: los lectores comparten el lock de lectura,
+     * así que varias consultas se resuelven de verdad a la vez.
+     */
+    @Override
+    public Executor asyncExecutor() {
+        return AsyncSupport.memory();
+    }
+
+    /**
+     * Con lectura optimista: no toma el lock salvo que un escritor haya cambiado la caché mientras.
+     */
+    @Override
+    public long count() {
+        BinarySnapshot<T> snapshot = direct();
+        if (snapshot != null) return snapshot.count();
+
+        refreshIfStale();
+        if (staged() != null) return read(cache::size);
+        long stamp = lock.tryOptimisticRead();
+        int size = cache.size();
+        if (lock.validate(stamp)) return size;
+        return read(cache::size);
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        BinarySnapshot<T> snapshot = direct();
+        if (snapshot != null) return snapshot.containsId(id);
+        return read(() -> cache.containsKey(id));
+    }
+
+    /**
+     * Busca por ID. Devuelve null si no existe.
+     */
+    @Override
+    public T findById(String id) {
+        BinarySnapshot<T> snapshot = direct();
+        if (snapshot != null) return snapshot.findById(id);   // Ya es una instancia nueva
+        return read(() -> {
+            T e = cache.get(id);
+            return e == null ? null : copyOf(e);
+        });
+    }
+
+    @Override
+    public Optional<T> findByIdOptional(String id) {
+        return Optional.ofNullable(findById(id));
+    }
+
+    @Override
+    public Iterable<T> findAll() { return load(); }
+
+    @Override
+    public List<T> findAllToList() { return load(); }
+
+    /**
+     * Página del listado por ID recorriendo el índice de IDs ordenadas: solo se copian las de la página.
+     */
+    @Override
+    public List<T> findPage(int offset, int limit, Orden orden) {
+        Paging.checkPage(offset, limit);
+        return read(() -> {
+            NavigableSet<String> ids = orden == Orden.DESC ? sortedIds.descendingSet() : sortedIds;
+            List<T> page = new ArrayList<>(Math.min(limit, Math.max(0, ids.size() - offset)));
+            Iterator<String> it = ids.iterator();
+            for (int i = 0; i < offset && it.hasNext(); i++) it.next();
+            while (page.size() < limit && it.hasNext()) page.add(copyOf(cache.get(it.next())));
+            return page;
+        });
+    }
+
+    /**
+     * Cada lote es un tailSet del índice de IDs ordenadas, leído con el lock de lectura solo mientras se copia.
+     */
+    @Override
+    public Stream<T> streamAll(String afterId, int batchSize) {
+        return Paging.keyset(afterId, batchSize, (after, n) -> read(() -> {
+            List<T> batch = new ArrayList<>(Math.min(n, cache.size()));
+            for (String id : after == null ? sortedIds : sortedIds.tailSet(after, false)) {
+                if (batch.size() >= n) break;
+                batch.add(copyOf(cache.get(id)));
+            }
+            return batch;
+        }), this::idOf);
+    }
+
+    /**
+     * Las k primeras entidades según order, sin ordenar todas: un montículo acotado a k guarda
+     * las mejores vistas hasta el momento (O(n log k) y memoria O(k)) y solo se copian esas k.
+     * Para órdenes que ya mantiene un índice de la subclase es mejor usar el índice.
+     */
+    public List<T> top(Comparator<? super T> order, int k) {
+        if (k < 0) throw new IllegalArgumentException("k debe ser >= 0");
+        if (k == 0) return new ArrayList<>();
+        return read(() -> {
+            // En la cima, la peor de las k mejores: es la que sale si llega una mejor
+            PriorityQueue<T> heap = new PriorityQueue<>(Math.min(k, cache.size()) + 1, order.reversed());
+            for (T e : cache.values()) {
+                if (heap.size() < k) heap.add(e);
+                else if (order.compare(e, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(e);
+                }
+            }
+            List<T> result = new ArrayList<>(heap.size());
+            while (!heap.isEmpty()) result.add(copyOf(heap.poll()));
+            Collections.reverse(result);
+            return result;
+        });
+    }
+
+    /**
+     * Devuelve las entidades con esos IDs (las que no existen se omiten), en el orden pedido.
+     */
+    @Override
+    public List<T> findAllById(Iterable<String> ids) {
+        return read(() -> {
+            List<T> result = new ArrayList<>();
+            for (String id : ids) {
+                T e = cache.get(id);
+                if (e != null) result.add(copyOf(e));
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Inserta o actualiza: si el ID ya existe se sustituye conservando su posición.
+     */
+    @Override
+    public <S extends T> S save(S entity) {
+        T copy = copyOf(entity);
+        String id = idOf(copy);
+        serialized(List.of(id), () -> commit(changes -> {
+            cachePut(copy);
+            changes.add(put(id, copy));
+            return null;
+        }));
+        return entity;
+    }
+
+    /**
+     * Lee, modifica y guarda una entidad sin que otro escritor del mismo ID se cuele entre medias,
+     * tampoco desde otro proceso (un findById + save concurrente puede perder actualizaciones; esto no).
+     * change recibe una copia y se ejecuta sin el lock de la caché. Devuelve la entidad guardada,
+     * o null si no existe.
+     */
+    public T update(String id, Consumer<T> change) {
+        return serialized(List.of(id), () -> shared.locked(() -> {
+            catchUp();
+            T copy = findById(id);
+            if (copy == null) return null;
+            change.accept(copy);
+            if (!id.equals(idOf(copy))) throw new IllegalArgumentException("update no puede cambiar el ID");
+            commit(changes -> {
+                cachePut(copy);
+                changes.add(put(id, copy));
+                return null;
+            });
+            return copyOf(copy);
+        }));
+    }
+
+    /**
+     * Guarda varias entidades con una única escritura del fichero (o un único grupo en el log).
+     */
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        Map<String, T> copies = new LinkedHashMap<>();
+        for (S entity : entities) {
+            T copy = copyOf(entity);
+            copies.put(idOf(copy), copy);
+            saved.add(entity);
+        }
+
+        serialized(copies.keySet(), () -> commit(changes -> {
+            for (T copy : copies.values()) {
+                cachePut(copy);
+                changes.add(put(idOf(copy), copy));
+            }
+            return null;
+        }));
+        return saved;
+    }
+
+    /**
+     * Borra varias entidades por ID con una única escritura. Los IDs que no existen se ignoran.
+     */
+    @Override
+    public void deleteAllById(Iterable<String> ids) {
+        List<String> list = new ArrayList<>();
+        ids.forEach(list::add);
+
+        serialized(list, () -> commit(changes -> {
+            for (String id : list) {
+                if (cacheRemove(id)) changes.add(new JsonJournal.Entry<>(JsonJournal.Op.DELETE, id, null));
+            }
+            return null;
+        }));
+    }
+
+    /**
+     * Borra por ID. Si no existe no hace nada.
+     */
+    @Override
+    public void deleteById(String id) {
+        serialized(List.of(id), () -> commit(changes -> {
+            if (cacheRemove(id)) changes.add(new JsonJournal.Entry<>(JsonJournal.Op.DELETE, id, null));
+            return null;
+        }));
+    }
+
+    /**
+     * Borra todas las entidades (fichero vacío).
+     */
+    @Override
+    public void deleteAll() {
+        serialized(null, () -> commit(changes -> {
+            cacheClear();
+            changes.add(new JsonJournal.Entry<>(JsonJournal.Op.CLEAR, null, null));
+            return null;
+        }));
+    }
+}
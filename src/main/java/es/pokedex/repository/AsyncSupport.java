@@ -0,0 +1,54 @@
+package es.pokedex.repository;
+
+import es.pokedex.util.DataBaseConnection;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Executors de las operaciones asíncronas de los repositorios (IRepositorioAsync).
+ */
+final class AsyncSupport {
+
+    // Un hilo virtual por operación: bloquearse (locks, disco, red) no ocupa un hilo del sistema
+    private static final ExecutorService VIRTUAL = Executors.newVirtualThreadPerTaskExecutor();
+
+    private static Executor database;
+
+    private AsyncSupport() {}
+
+    /**
+     * Repositorios JSON: hilos virtuales sin límite (las lecturas solo tocan memoria).
+     */
+    static Executor memory() {
+        return VIRTUAL;
+    }
+
+    /**
+     * Repositorios MySQL: hilos virtuales, pero como mucho tantas operaciones a la vez como conexiones
+     * tiene el pool; las demás esperan su turno aquí en lugar de agotar el tiempo de espera del pool.
+     * Se crea la primera vez que se pide, para no abrir el pool antes de usarlo.
+     */
+    static synchronized Executor database() {
+        if (database == null) database = bounded(DataBaseConnection.getPool().getMaxSize());
+        return database;
+    }
+
+    /**
+     * Executor de hilos virtuales que ejecuta como mucho maxConcurrent tareas a la vez.
+     * Las que esperan permiso lo hacen en su propio hilo virtual (no bloquean a quien las lanza).
+     */
+    static Executor bounded(int maxConcurrent) {
+        Semaphore permits = new Semaphore(maxConcurrent, true);
+        return task -> VIRTUAL.execute(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+}
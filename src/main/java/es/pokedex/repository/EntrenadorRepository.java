@@ -3,179 +3,168 @@ package es.pokedex.repository;
 import com.fasterxml.jackson.core.type.TypeReference;
 import es.pokedex.domain.Entrenador;
 import es.pokedex.domain.Region;
-import es.pokedex.util.JsonFileStore;
 
-import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-public class EntrenadorRepository implements IRepositorioExtend<Entrenador, String> {
+public class EntrenadorRepository extends AbstractJsonRepository<Entrenador> implements IRepositorioReferencias<String>, IRepositorioRanking {
 
-    private final Path path;                 // Ruta del fichero entrenadores.json
-    private final JsonFileStore store = new JsonFileStore();  // Utilidad para leer/escribir JSON
+    // Índice secundario: región → entrenadores de esa región
+    private final SecondaryIndex<Region> byRegion = SecondaryIndex.forEnum(Region.class);
+    // Índice inverso: Pokémon → entrenadores que lo tienen en el equipo
+    private final SecondaryIndex<String> byPokemon = SecondaryIndex.hashed();
+    // Índice de prefijos por nombre (autocompletado)
+    private final PrefixIndex byNombre = new PrefixIndex();
+    // Tamaño del equipo → entrenadores, de mayor a menor (top de entrenadores en O(k))
+    private final SecondaryIndex<Integer> byTeamSize = SecondaryIndex.sorted(Comparator.reverseOrder());
 
     /**
      * Constructor: recibe el directorio y fija la ruta al json de entrenadores.
      */
     public EntrenadorRepository(String dataDir) {
-        this.path = Paths.get(dataDir, "entrenadores.json");
+        this(dataDir, false);
     }
 
     /**
-     * Lee el fichero JSON y devuelve una lista nueva (copia para evitar modificar la interna).
-     * synchronized evita conflictos si varios hilos acceden a la vez.
+     * Constructor con modo journal: los cambios van a entrenadores.json.log y se compactan en segundo plano.
      */
-    private synchronized List<Entrenador> load() {
-        List<Entrenador> list = store.readList(path, new TypeReference<>(){});
-        return new ArrayList<>(list);
+    public EntrenadorRepository(String dataDir, boolean journaled) {
+        this(dataDir, journaled, false);
     }
 
     /**
-     * Guarda toda la lista sobrescribiendo el fichero.
+     * Constructor con formato binario: los datos van a entrenadores.bin (ver SnapshotCodecs) en lugar del JSON.
      */
-    private synchronized void saveAll(List<Entrenador> list) {
-        store.writeList(path, list);
+    public EntrenadorRepository(String dataDir, boolean journaled, boolean binary) {
+        super(Paths.get(dataDir, binary ? "entrenadores.bin" : "entrenadores.json"), new TypeReference<>(){},
+                binary ? SnapshotCodecs.ENTRENADOR : null, journaled);
     }
 
-    // ---------------- Implementación CRUD básica ----------------
+    @Override
+    protected String idOf(Entrenador e) { return e.getId(); }
 
     @Override
-    public long count() { return load().size(); }
+    protected Entrenador copyOf(Entrenador e) {
+        return new Entrenador(e.getId(), e.getNombre(), e.getRegion(), e.getPokedexNumbers());
+    }
 
-    /**
-     * Borra un entrenador por ID. Si no existe no hace nada.
-     */
     @Override
-    public synchronized void deleteById(String id) {
-        List<Entrenador> all = load();
-        boolean removed = all.removeIf(e -> e.getId().equals(id));
-        if (removed) saveAll(all);
+    protected void indexAdd(Entrenador e) {
+        byRegion.add(e.getRegion(), e.getId());
+        for (String num : e.getPokedexNumbers()) byPokemon.add(num, e.getId());
+        byNombre.add(e.getNombre(), e.getId());
+        byTeamSize.add(e.getPokedexNumbers().size(), e.getId());
     }
 
-    /**
-     * Elimina todos los entrenadores (deja fichero vacío).
-     */
     @Override
-    public synchronized void deleteAll() { saveAll(new ArrayList<>()); }
+    protected void indexRemove(Entrenador e) {
+        byRegion.remove(e.getRegion(), e.getId());
+        for (String num : e.getPokedexNumbers()) byPokemon.remove(num, e.getId());
+        byNombre.remove(e.getNombre(), e.getId());
+        byTeamSize.remove(e.getPokedexNumbers().size(), e.getId());
+    }
 
-    /**
-     * Comprueba si existe un entrenador con ese ID.
-     */
     @Override
-    public boolean existsById(String id) {
-        return load().stream().anyMatch(e -> e.getId().equals(id));
+    protected void indexClear() {
+        byRegion.clear();
+        byPokemon.clear();
+        byNombre.clear();
+        byTeamSize.clear();
     }
 
+    // ---------------- Métodos semánticos adicionales del repositorio ----------------
+
     /**
-     * Devuelve el entrenador con ese ID o null si no existe.
+     * Devuelve entrenadores filtrados por región.
      */
-    @Override
-    public Entrenador findById(String id) {
-        return load().stream()
-                .filter(e -> e.getId().equals(id))
-                .findFirst()
-                .orElse(null);
+    public List<Entrenador> findByRegion(Region region) {
+        return indexed(() -> copiesOf(byRegion.get(region)));
     }
 
     /**
-     * Guarda o actualiza un entrenador.
-     * Si existe lo actualiza; si no existe lo inserta.
+     * Devuelve los entrenadores que tienen ese Pokémon en el equipo (índice Pokémon → entrenadores).
      */
-    @Override
-    public synchronized <S extends Entrenador> S save(S entity) {
-        List<Entrenador> all = load();
-
-        Optional<Entrenador> existing = all.stream()
-                .filter(e -> e.getId().equals(entity.getId()))
-                .findFirst();
-
-        if (existing.isPresent()) {
-            // Actualiza campos del entrenador existente
-            Entrenador ex = existing.get();
-            ex.setNombre(entity.getNombre());
-            ex.setRegion(entity.getRegion());
-
-            ex.getPokedexNumbers().clear();
-            ex.getPokedexNumbers().addAll(entity.getPokedexNumbers());
-        } else {
-            // Inserta nuevo entrenador
-            all.add(entity);
-        }
-
-        saveAll(all);
-        return entity;
+    public List<Entrenador> findByPokemon(String pokedexNumber) {
+        return indexed(() -> copiesOf(byPokemon.get(pokedexNumber)));
     }
 
-
-
-    @Override
-    public Iterable<Entrenador> findAll() { return load(); }
-
+    /**
+     * Región → nº de entrenadores, sacado del índice por región.
+     */
     @Override
-    public Optional<Entrenador> findByIdOptional(String id) {
-        return Optional.ofNullable(findById(id));
+    public Map<Region, Long> countByRegion() {
+        return indexed(() -> byRegion.counts(new EnumMap<>(Region.class)));
     }
 
+    /**
+     * Los k primeros entrenadores según el criterio. Cada criterio tiene un índice que ya está en ese orden
+     * (tamaño de equipo, región y nombre), así que se toman los k primeros IDs sin ordenar ni copiar los demás: O(k).
+     * Para cualquier otro orden está top(Comparator, k).
+     */
     @Override
-    public List<Entrenador> findAllToList() { return load(); }
+    public List<Entrenador> topBy(RankingEntrenador ranking, int k) {
+        if (k < 0) throw new IllegalArgumentException("k debe ser >= 0");
+        return indexed(() -> copiesOf(switch (ranking) {
+            case EQUIPO -> byTeamSize.firstIds(k);
+            case REGION -> byRegion.firstIds(k);
+            case NOMBRE -> byNombre.idsWithPrefix("").limit(k).toList();
+        }));
+    }
 
-    // ---------------- Métodos semánticos adicionales del repositorio ----------------
+    /**
+     * Devuelve entrenadores cuyo nombre empieza por un prefijo (sin distinguir mayúsculas ni acentos),
+     * ordenados por nombre.
+     */
+    public List<Entrenador> findByNombrePrefix(String prefix) {
+        return findByNombrePrefix(prefix, Integer.MAX_VALUE);
+    }
 
     /**
-     * Devuelve entrenadores filtrados por región.
+     * Como findByNombrePrefix pero devolviendo como mucho limit resultados.
      */
-    public List<Entrenador> findByRegion(Region region) {
-        return load().stream()
-                .filter(e -> e.getRegion() == region)
-                .collect(Collectors.toList());
+    public List<Entrenador> findByNombrePrefix(String prefix, int limit) {
+        try (Stream<Entrenador> s = streamByNombrePrefix(prefix)) {
+            return s.limit(limit).collect(Collectors.toList());
+        }
     }
 
     /**
-     * Devuelve entrenadores cuyo nombre empieza por un prefijo.
+     * Recorre de forma perezosa los entrenadores cuyo nombre empieza por el prefijo, ordenados por nombre.
+     * Solo se copian los entrenadores que se llegan a consumir.
      */
-    public List<Entrenador> findByNombrePrefix(String prefix) {
-        String p = prefix.toLowerCase();
-        return load().stream()
-                .filter(e -> e.getNombre().toLowerCase().startsWith(p))
-                .collect(Collectors.toList());
+    public Stream<Entrenador> streamByNombrePrefix(String prefix) {
+        refresh();
+        String p = PrefixIndex.normalize(prefix);
+        return byNombre.idsWithPrefix(prefix)
+                .map(this::findById)
+                .filter(e -> e != null && PrefixIndex.normalize(e.getNombre()).startsWith(p));
     }
 
     // ---------------- Métodos usados al borrar otras entidades ----------------
 
     /**
      * Elimina referencias a un Pokémon en TODOS los entrenadores.
+     * Usa el índice Pokémon → entrenadores y guarda todos los cambios de una vez.
      * Devuelve cuántos entrenadores fueron modificados.
      */
-    public synchronized int removePokemonReferences(String pokedexNumber) {
-        List<Entrenador> all = load();
-        int count = 0;
-
-        for (Entrenador e : all) {
-            if (e.getPokedexNumbers().removeIf(id -> id.equals(pokedexNumber))) {
-                count++;
-            }
-        }
+    public int removePokemonReferences(String pokedexNumber) {
+        return updateIndexed(() -> byPokemon.get(pokedexNumber),
+                e -> e.getPokedexNumbers().removeIf(id -> id.equals(pokedexNumber)));
+    }
 
-        saveAll(all);
-        return count;
+    @Override
+    public int removeReferences(String pokedexNumber) {
+        return removePokemonReferences(pokedexNumber);
     }
 
     /**
      * Eliminación de referencias a movimientos — aquí no aplica porque los entrenadores no tienen movimientos.
      * Se dejó por simetría pero realmente no se utiliza.
      */
-    public synchronized int removeMovimientoReferences(String movimientoId) {
-        List<Entrenador> all = load();
-        int count = 0;
-
-        for (Entrenador e : all) {
-            if (e.getPokedexNumbers().removeIf(id -> id.equals(movimientoId))) {
-                count++;
-            }
-        }
-
-        saveAll(all);
-        return count;
+    public int removeMovimientoReferences(String movimientoId) {
+        return updateWhere(e -> e.getPokedexNumbers().contains(movimientoId),
+                e -> e.getPokedexNumbers().removeIf(id -> id.equals(movimientoId)));
     }
 }
@@ -6,12 +6,71 @@ import es.pokedex.domain.TipoPokemon;
 import es.pokedex.util.DataBaseConnection;
 
 import java.sql.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-public class EntrenadorRepositoryMySQL implements IRepositorioExtend<Entrenador, String> {
+public class EntrenadorRepositoryMySQL implements IRepositorioAsync<Entrenador, String>, IRepositorioTransaccional<Entrenador, String>, IRepositorioReferencias<String>,
+        IRepositorioRanking {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO entrenador (id, nombre, region)
+            VALUES (?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                nombre = VALUES(nombre),
+                region = VALUES(region)
+            """;
+
+    // La región se guarda como texto: para ordenar por generación (como el enum) y no alfabéticamente
+    private static final String REGION_ORDER = Arrays.stream(Region.values())
+            .map(r -> "WHEN '" + r.name() + "' THEN " + r.ordinal())
+            .collect(Collectors.joining(" ", "CASE region ", " END"));
+
+    // Tabla intermedia entrenador ↔ Pokémon (ver sql/schema.sql)
+    private static final String REL_TABLE = "entrenador_pokemon";
+    private static final String REL_OWNER = "entrenador_id";
+    private static final String REL_TARGET = "pokedex_number";
+
+    /**
+     * Convierte la fila actual del ResultSet en un Entrenador (sin Pokémon).
+     */
+    private static Entrenador mapRow(ResultSet rs) throws SQLException {
+        return new Entrenador(
+                rs.getString("id"),
+                rs.getString("nombre"),
+                Region.valueOf(rs.getString("region")),
+                new ArrayList<>()
+        );
+    }
+
+    /**
+     * Rellena el equipo de los entrenadores leídos con una consulta por cada lote de entrenadores.
+     */
+    private static void attachPokemons(Connection con, List<Entrenador> list) throws SQLException {
+        attachPokemons(con, list, false);
+    }
+
+    /**
+     * Como attachPokemons; con forUpdate las filas de la relación se leen con FOR UPDATE.
+     */
+    private static void attachPokemons(Connection con, List<Entrenador> list, boolean forUpdate) throws SQLException {
+        if (list.isEmpty()) return;
+        Map<String, Entrenador> byId = new HashMap<>();
+        for (Entrenador e : list) byId.put(e.getId(), e);
+
+        JdbcSupport.loadRelation(con, REL_TABLE, REL_OWNER, REL_TARGET, byId.keySet(), forUpdate)
+                .forEach((id, pokes) -> byId.get(id).getPokedexNumbers().addAll(pokes));
+    }
+
+    /**
+     * Guarda el equipo de cada entrenador escribiendo solo la diferencia.
+     */
+    private static void writePokemons(Connection con, List<? extends Entrenador> list) throws SQLException {
+        Map<String, List<String>> desired = new LinkedHashMap<>();
+        for (Entrenador e : list) desired.put(e.getId(), e.getPokedexNumbers());
+        JdbcSupport.writeRelation(con, REL_TABLE, REL_OWNER, REL_TARGET, desired);
+    }
 
     @Override
     public Entrenador findById(String id) {
@@ -25,12 +84,9 @@ public class EntrenadorRepositoryMySQL implements IRepositorioExtend<Entrenador,
             ResultSet rs = ps.executeQuery();
 
             if (rs.next()) {
-                return new Entrenador(
-                        rs.getString("id"),
-                        rs.getString("nombre"),
-                        Region.valueOf(rs.getString("region")),
-                        new ArrayList<>()
-                );
+                Entrenador e = mapRow(rs);
+                attachPokemons(con, List.of(e));
+                return e;
             }
             return null;
 
@@ -39,6 +95,17 @@ public class EntrenadorRepositoryMySQL implements IRepositorioExtend<Entrenador,
         }
     }
 
+    /**
+     * findById con SELECT ... FOR UPDATE (también las filas de su equipo): dentro de una UnitOfWork
+     * el entrenador y su equipo quedan bloqueados hasta el commit y se leen tal como están confirmados.
+     */
+    @Override
+    public Entrenador findByIdForUpdate(String id) {
+        List<Entrenador> found = JdbcSupport.list("SELECT * FROM entrenador WHERE id = ? FOR UPDATE",
+                ps -> ps.setString(1, id), EntrenadorRepositoryMySQL::mapRow, (con, list) -> attachPokemons(con, list, true), "Error bloqueando entrenador");
+        return found.isEmpty() ? null : found.get(0);
+    }
+
     @Override
     public Optional<Entrenador> findByIdOptional(String id) {
         return Optional.ofNullable(findById(id));
@@ -55,13 +122,9 @@ public class EntrenadorRepositoryMySQL implements IRepositorioExtend<Entrenador,
              ResultSet rs = st.executeQuery(sql)) {
 
             while (rs.next()) {
-                list.add(new Entrenador(
-                        rs.getString("id"),
-                        rs.getString("nombre"),
-                        Region.valueOf(rs.getString("region")),
-                        new ArrayList<>()
-                ));
+                list.add(mapRow(rs));
             }
+            attachPokemons(con, list);
 
         } catch (SQLException e) {
             throw new RuntimeException("Error listando entrenadores", e);
@@ -74,24 +137,27 @@ public class EntrenadorRepositoryMySQL implements IRepositorioExtend<Entrenador,
         return findAllToList();
     }
 
+    /**
+     * Inserta/actualiza el entrenador y su equipo en una transacción.
+     */
     @Override
     public <S extends Entrenador> S save(S entity) {
 
-        String sql = """
-            INSERT INTO entrenador (id, nombre, region)
-            VALUES (?, ?, ?)
-            ON DUPLICATE KEY UPDATE
-                nombre = VALUES(nombre),
-                region = VALUES(region)
-            """;
+        try (Connection con = DataBaseConnection.getConnection()) {
+            con.setAutoCommit(false);
+            try (PreparedStatement ps = con.prepareStatement(UPSERT_SQL)) {
 
-        try (Connection con = DataBaseConnection.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
+                ps.setString(1, entity.getId());
+                ps.setString(2, entity.getNombre());
+                ps.setString(3, entity.getRegion().name());
+                ps.executeUpdate();
 
-            ps.setString(1, entity.getId());
-            ps.setString(2, entity.getNombre());
-            ps.setString(3, entity.getRegion().name());
-            ps.executeUpdate();
+                writePokemons(con, List.of(entity));
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
 
             return entity;
 
@@ -133,12 +199,293 @@ public class EntrenadorRepositoryMySQL implements IRepositorioExtend<Entrenador,
 
     @Override
     public boolean existsById(String id) {
-        return findById(id) != null;
+
+        String sql = "SELECT 1 FROM entrenador WHERE id = ?";
+
+        try (Connection con = DataBaseConnection.getConnection();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+
+            ps.setString(1, id);
+            ResultSet rs = ps.executeQuery();
+            return rs.next();
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error comprobando entrenador", e);
+        }
+    }
+
+    /**
+     * Operaciones asíncronas en hilos virtuales, como mucho tantas a la vez como conexiones tiene el pool.
+     */
+    @Override
+    public Executor asyncExecutor() {
+        return AsyncSupport.database();
     }
 
     @Override
     public long count() {
-        return findAllToList().size();
+
+        String sql = "SELECT COUNT(*) FROM entrenador";
+
+        try (Connection con = DataBaseConnection.getConnection();
+             Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+
+            rs.next();
+            return rs.getLong(1);
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error contando entrenadores", e);
+        }
+    }
+
+    // ---------------- Listados paginados ----------------
+
+    /**
+     * Página ordenada por ID con ORDER BY ... LIMIT ? OFFSET ?.
+     */
+    @Override
+    public List<Entrenador> findPage(int offset, int limit, Orden orden) {
+        return JdbcSupport.page("entrenador", "id", offset, limit, orden, EntrenadorRepositoryMySQL::mapRow, EntrenadorRepositoryMySQL::attachPokemons);
+    }
+
+    /**
+     * Recorrido por clave: lotes de "WHERE id > ? ORDER BY id LIMIT batchSize".
+     */
+    @Override
+    public Stream<Entrenador> streamAll(String afterId, int batchSize) {
+        return JdbcSupport.keyset("entrenador", "id", afterId, batchSize, EntrenadorRepositoryMySQL::mapRow, EntrenadorRepositoryMySQL::attachPokemons, Entrenador::getId);
+    }
+
+    // ---------------- Operaciones por lotes ----------------
+
+    /**
+     * Busca varios entrenadores con una consulta IN (...) por cada BATCH_SIZE IDs.
+     */
+    @Override
+    public List<Entrenador> findAllById(Iterable<String> ids) {
+        return findAllById(ids, false);
+    }
+
+    /**
+     * findAllById con FOR UPDATE: los entrenadores y sus equipos quedan bloqueados hasta el commit.
+     */
+    @Override
+    public List<Entrenador> findAllByIdForUpdate(Iterable<String> ids) {
+        return findAllById(ids, true);
+    }
+
+    private List<Entrenador> findAllById(Iterable<String> ids, boolean forUpdate) {
+
+        List<Entrenador> list = new ArrayList<>();
+
+        try (Connection con = DataBaseConnection.getConnection()) {
+            for (List<String> chunk : JdbcSupport.chunks(JdbcSupport.distinct(ids))) {
+                String sql = "SELECT * FROM entrenador WHERE id IN (" + JdbcSupport.placeholders(chunk.size()) + ")"
+                        + (forUpdate ? " FOR UPDATE" : "");
+                try (PreparedStatement ps = con.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) ps.setString(i + 1, chunk.get(i));
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) list.add(mapRow(rs));
+                    }
+                }
+            }
+            attachPokemons(con, list, forUpdate);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error buscando entrenadores", e);
+        }
+
+        return list;
+    }
+
+    /**
+     * Inserta/actualiza varios entrenadores (y sus equipos) en una transacción con addBatch/executeBatch.
+     * Con rewriteBatchedStatements=true en la URL el driver lo envía como INSERT multi-fila.
+     */
+    @Override
+    public <S extends Entrenador> List<S> saveAll(Iterable<S> entities) {
+
+        List<S> list = new ArrayList<>();
+        entities.forEach(list::add);
+        if (list.isEmpty()) return list;
+
+        try (Connection con = DataBaseConnection.getConnection()) {
+            con.setAutoCommit(false);
+            try (PreparedStatement ps = con.prepareStatement(UPSERT_SQL)) {
+                for (List<S> chunk : JdbcSupport.chunks(list)) {
+                    for (S entity : chunk) {
+                        ps.setString(1, entity.getId());
+                        ps.setString(2, entity.getNombre());
+                        ps.setString(3, entity.getRegion().name());
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                writePokemons(con, list);
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
+            return list;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error guardando entrenadores", e);
+        }
+    }
+
+    /**
+     * Borra varios entrenadores en una transacción con addBatch/executeBatch.
+     */
+    @Override
+    public void deleteAllById(Iterable<String> ids) {
+
+        String sql = "DELETE FROM entrenador WHERE id = ?";
+
+        try (Connection con = DataBaseConnection.getConnection()) {
+            con.setAutoCommit(false);
+            try (PreparedStatement ps = con.prepareStatement(sql)) {
+                for (List<String> chunk : JdbcSupport.chunks(JdbcSupport.distinct(ids))) {
+                    for (String id : chunk) {
+                        ps.setString(1, id);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error borrando entrenadores", e);
+        }
+    }
+
+    // ---------------- Búsqueda por prefijo ----------------
+
+    /**
+     * Entrenadores cuyo nombre empieza por el prefijo, ordenados por nombre.
+     * Usa el índice de nombre con LIKE 'prefijo%'; con la colación por defecto (utf8mb4_0900_ai_ci)
+     * no distingue mayúsculas ni acentos, igual que la versión JSON.
+     */
+    public List<Entrenador> findByNombrePrefix(String prefix) {
+        return findByNombrePrefix(prefix, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Como findByNombrePrefix pero devolviendo como mucho limit resultados (LIMIT en la consulta).
+     */
+    public List<Entrenador> findByNombrePrefix(String prefix, int limit) {
+
+        List<Entrenador> list = new ArrayList<>();
+        String sql = "SELECT * FROM entrenador WHERE nombre LIKE ? ORDER BY nombre, id LIMIT ?";
+
+        try (Connection con = DataBaseConnection.getConnection();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+
+            ps.setString(1, JdbcSupport.likePrefix(prefix));
+            ps.setInt(2, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) list.add(mapRow(rs));
+            }
+            attachPokemons(con, list);
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error buscando entrenadores por prefijo", e);
+        }
+
+        return list;
+    }
+
+    /**
+     * Recorre de forma perezosa los entrenadores cuyo nombre empieza por el prefijo, ordenados por nombre.
+     * Mantiene la conexión abierta hasta cerrar el Stream (usar try-with-resources).
+     */
+    public Stream<Entrenador> streamByNombrePrefix(String prefix) {
+        return JdbcSupport.stream(
+                "SELECT * FROM entrenador WHERE nombre LIKE ? ORDER BY nombre, id",
+                ps -> ps.setString(1, JdbcSupport.likePrefix(prefix)),
+                EntrenadorRepositoryMySQL::mapRow,
+                EntrenadorRepositoryMySQL::attachPokemons);
+    }
+
+    // ---------------- Métodos usados al borrar otras entidades ----------------
+
+    /**
+     * Quita un Pokémon del equipo de todos los entrenadores que lo tienen.
+     * Es un único DELETE sobre la tabla intermedia (índice idx_ep_pokemon), atómico por sí mismo.
+     * Devuelve cuántos entrenadores fueron modificados.
+     */
+    public int removePokemonReferences(String pokedexNumber) {
+
+        String sql = "DELETE FROM " + REL_TABLE + " WHERE " + REL_TARGET + " = ?";
+
+        try (Connection con = DataBaseConnection.getConnection();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+
+            ps.setString(1, pokedexNumber);
+            return ps.executeUpdate();
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error quitando referencias a pokemon", e);
+        }
+    }
+
+    @Override
+    public int removeReferences(String pokedexNumber) {
+        return removePokemonReferences(pokedexNumber);
+    }
+
+    // ---------------- Reportes ----------------
+
+    /**
+     * Nº de entrenadores por región con un GROUP BY.
+     */
+    @Override
+    public Map<Region, Long> countByRegion() {
+        return JdbcSupport.countBy("SELECT region, COUNT(*) FROM entrenador GROUP BY region",
+                Region.class, "Error contando entrenadores por región");
+    }
+
+    /**
+     * Los k primeros entrenadores según el criterio: el servidor ordena y corta con ORDER BY ... LIMIT,
+     * así que solo viajan k filas. Por nombre usa el índice idx_entrenador_nombre; por equipo cuenta
+     * los Pokémon de cada entrenador con un GROUP BY.
+     */
+    @Override
+    public List<Entrenador> topBy(RankingEntrenador ranking, int k) {
+        if (k < 0) throw new IllegalArgumentException("k debe ser >= 0");
+
+        List<Entrenador> list = new ArrayList<>();
+        String sql = switch (ranking) {
+            case EQUIPO -> """
+                    SELECT e.id, e.nombre, e.region, COUNT(ep.pokedex_number) AS pokemons
+                    FROM entrenador e
+                    LEFT JOIN entrenador_pokemon ep ON ep.entrenador_id = e.id
+                    GROUP BY e.id, e.nombre, e.region
+                    ORDER BY pokemons DESC, e.id
+                    LIMIT ?
+                    """;
+            case REGION -> "SELECT * FROM entrenador ORDER BY " + REGION_ORDER + ", id LIMIT ?";
+            case NOMBRE -> "SELECT * FROM entrenador ORDER BY nombre, id LIMIT ?";
+        };
+
+        try (Connection con = DataBaseConnection.getConnection();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+
+            ps.setInt(1, k);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) list.add(mapRow(rs));
+            }
+            attachPokemons(con, list);
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error buscando top de entrenadores", e);
+        }
+
+        return list;
     }
 
     // ===== OBLIGATORIO POR IRepositorioExtend =====
@@ -0,0 +1,121 @@
+package es.pokedex.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Variante asíncrona de IRepositorioExtend: cada operación devuelve un CompletableFuture
+ * y se ejecuta en el Executor del repositorio (hilos virtuales), así varias consultas
+ * independientes se hacen a la vez en lugar de una detrás de otra.
+ * Los métodos síncronos siguen disponibles; los asíncronos los envuelven.
+ */
+public interface IRepositorioAsync<T, ID> extends IRepositorioExtend<T, ID> {
+
+    /**
+     * Executor en el que se ejecutan las operaciones asíncronas. Los repositorios MySQL limitan
+     * cuántas van a la vez al tamaño del pool de conexiones.
+     */
+    Executor asyncExecutor();
+
+    default CompletableFuture<T> findByIdAsync(ID id) {
+        return CompletableFuture.supplyAsync(() -> findById(id), asyncExecutor());
+    }
+
+    default CompletableFuture<Optional<T>> findByIdOptionalAsync(ID id) {
+        return CompletableFuture.supplyAsync(() -> findByIdOptional(id), asyncExecutor());
+    }
+
+    default CompletableFuture<List<T>> findAllByIdAsync(Iterable<ID> ids) {
+        return CompletableFuture.supplyAsync(() -> findAllById(ids), asyncExecutor());
+    }
+
+    default CompletableFuture<List<T>> findAllToListAsync() {
+        return CompletableFuture.supplyAsync(this::findAllToList, asyncExecutor());
+    }
+
+    default CompletableFuture<Boolean> existsByIdAsync(ID id) {
+        return CompletableFuture.supplyAsync(() -> existsById(id), asyncExecutor());
+    }
+
+    default CompletableFuture<Long> countAsync() {
+        return CompletableFuture.supplyAsync(this::count, asyncExecutor());
+    }
+
+    default <S extends T> CompletableFuture<S> saveAsync(S entity) {
+        return CompletableFuture.supplyAsync(() -> save(entity), asyncExecutor());
+    }
+
+    default <S extends T> CompletableFuture<List<S>> saveAllAsync(Iterable<S> entities) {
+        return CompletableFuture.supplyAsync(() -> saveAll(entities), asyncExecutor());
+    }
+
+    default CompletableFuture<Void> deleteByIdAsync(ID id) {
+        return CompletableFuture.runAsync(() -> deleteById(id), asyncExecutor());
+    }
+
+    default CompletableFuture<Void> deleteAllByIdAsync(Iterable<ID> ids) {
+        return CompletableFuture.runAsync(() -> deleteAllById(ids), asyncExecutor());
+    }
+
+    /**
+     * Busca cada ID con su propio findById, todos a la vez. Mismo resultado que findAllById:
+     * en el orden pedido y sin los que no existen.
+     */
+    default CompletableFuture<List<T>> findEachByIdAsync(Iterable<ID> ids) {
+        List<CompletableFuture<T>> lookups = new ArrayList<>();
+        for (ID id : ids) lookups.add(findByIdAsync(id));
+
+        return CompletableFuture.allOf(lookups.toArray(CompletableFuture[]::new))
+                .thenApply(v -> lookups.stream()
+                        .map(CompletableFuture::join)
+                        .filter(Objects::nonNull)
+                        .toList());
+    }
+
+    // ---------------- Para servicios que reciben un IRepositorioExtend cualquiera ----------------
+
+    /**
+     * findByIdAsync si el repositorio es asíncrono; si no, findById en el hilo actual
+     * (devuelve un futuro ya completado).
+     */
+    @SuppressWarnings("unchecked")
+    static <T, ID> CompletableFuture<T> findByIdAsync(IRepositorioExtend<T, ID> repo, ID id) {
+        if (repo instanceof IRepositorioAsync<?, ?> async) return ((IRepositorioAsync<T, ID>) async).findByIdAsync(id);
+        try {
+            return CompletableFuture.completedFuture(repo.findById(id));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * findAllByIdAsync si el repositorio es asíncrono; si no, findAllById en el hilo actual.
+     */
+    @SuppressWarnings("unchecked")
+    static <T, ID> CompletableFuture<List<T>> findAllByIdAsync(IRepositorioExtend<T, ID> repo, Iterable<ID> ids) {
+        if (repo instanceof IRepositorioAsync<?, ?> async) return ((IRepositorioAsync<T, ID>) async).findAllByIdAsync(ids);
+        try {
+            return CompletableFuture.completedFuture(repo.findAllById(ids));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Espera el resultado. Si la operación falló lanza la excepción original
+     * (p.ej. EntityNotFoundException), no la CompletionException que la envuelve.
+     */
+    static <R> R join(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+}
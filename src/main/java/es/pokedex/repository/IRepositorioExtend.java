@@ -3,11 +3,14 @@ package es.pokedex.repository;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface IRepositorioExtend<T, ID> {
 
     T findById(ID id);
 
+    List<T> findAllById(Iterable<ID> ids);
+
     Optional<T> findByIdOptional(ID id);
 
     List<T> findAllToList();
@@ -16,11 +19,27 @@ public interface IRepositorioExtend<T, ID> {
 
     <S extends T> S save(S entity);
 
+    <S extends T> List<S> saveAll(Iterable<S> entities);
+
     void deleteById(ID id);
 
+    void deleteAllById(Iterable<ID> ids);
+
     void deleteAll();
 
     long count();
 
     boolean existsById(ID id);
+
+    /**
+     * Una página del listado ordenado por ID: como mucho limit entidades a partir de la posición offset.
+     */
+    List<T> findPage(int offset, int limit, Orden orden);
+
+    /**
+     * Recorre todas las entidades en orden de ID empezando después de afterId (null: desde el principio).
+     * Se leen de batchSize en batchSize, cada lote a partir de la última ID leída: memoria constante
+     * sea cual sea el tamaño, y entre lotes no queda nada abierto.
+     */
+    Stream<T> streamAll(ID afterId, int batchSize);
 }
@@ -0,0 +1,17 @@
+package es.pokedex.repository;
+
+import es.pokedex.domain.Region;
+
+import java.util.List;
+
+/**
+ * Repositorio de Pokémon que responde "todos los Pokémon de una región" como una consulta de rango
+ * sobre el número de Pokédex (el rango lo da Generaciones), sin recorrer todos.
+ */
+public interface IRepositorioPorGeneracion<T> {
+
+    /**
+     * Pokémon cuyo número está en el rango de la región, por número de Pokédex.
+     */
+    List<T> findByGeneracion(Region region);
+}
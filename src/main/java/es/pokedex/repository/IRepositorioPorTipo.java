@@ -0,0 +1,17 @@
+package es.pokedex.repository;
+
+import es.pokedex.domain.TipoPokemon;
+
+import java.util.Map;
+
+/**
+ * Repositorio cuyas entidades tienen un TipoPokemon (Pokémon y movimientos).
+ * Los repositorios JSON mantienen el recuento al escribir; los MySQL lo calculan con GROUP BY.
+ */
+public interface IRepositorioPorTipo {
+
+    /**
+     * Tipo → nº de entidades de ese tipo (solo los tipos con al menos una).
+     */
+    Map<TipoPokemon, Long> countByTipo();
+}
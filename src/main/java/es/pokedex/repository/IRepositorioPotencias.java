@@ -0,0 +1,18 @@
+package es.pokedex.repository;
+
+import es.pokedex.domain.TipoPokemon;
+
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Repositorio de movimientos: distribución de la potencia de los movimientos de cada tipo.
+ */
+public interface IRepositorioPotencias {
+
+    /**
+     * Histograma de potencias por tipo: tipo → (inicio del intervalo → nº de movimientos).
+     * Los intervalos son [inicio, inicio + anchura); solo aparecen los que tienen algún movimiento.
+     */
+    Map<TipoPokemon, SortedMap<Integer, Long>> potenciaHistogram(int anchura);
+}
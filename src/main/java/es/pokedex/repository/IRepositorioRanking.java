@@ -0,0 +1,32 @@
+package es.pokedex.repository;
+
+import es.pokedex.domain.Entrenador;
+import es.pokedex.domain.Region;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Agregados de los entrenadores para los reportes. Cuestan O(nº de regiones) y O(k):
+ * los repositorios JSON los mantienen al escribir y los MySQL los resuelven en el servidor.
+ */
+public interface IRepositorioRanking {
+
+    /**
+     * Región → nº de entrenadores de esa región (solo las regiones con alguno).
+     */
+    Map<Region, Long> countByRegion();
+
+    /**
+     * Los k primeros entrenadores según el criterio (a igualdad, por DNI).
+     * Nunca se ordenan todos: memoria O(k).
+     */
+    List<Entrenador> topBy(RankingEntrenador ranking, int k);
+
+    /**
+     * Los k entrenadores con más Pokémon en el equipo, de más a menos (a igualdad, por DNI).
+     */
+    default List<Entrenador> topByTeamSize(int k) {
+        return topBy(RankingEntrenador.EQUIPO, k);
+    }
+}
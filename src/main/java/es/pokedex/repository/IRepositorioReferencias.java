@@ -0,0 +1,15 @@
+package es.pokedex.repository;
+
+/**
+ * Repositorio cuyas entidades guardan IDs de otra entidad (p.ej. los movimientos de un Pokémon).
+ * Sirve para limpiar esas referencias en bloque al borrar la entidad referenciada.
+ */
+public interface IRepositorioReferencias<ID> {
+
+    /**
+     * Quita refId de todas las entidades que lo referencian. Solo se visitan las afectadas
+     * y todos los cambios se guardan juntos de forma atómica.
+     * Devuelve cuántas entidades se modificaron.
+     */
+    int removeReferences(ID refId);
+}
@@ -0,0 +1,32 @@
+package es.pokedex.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Repositorio que puede participar en una UnitOfWork.
+ */
+public interface IRepositorioTransaccional<T, ID> {
+
+    /**
+     * Como findById, pero dentro de una UnitOfWork la entidad queda bloqueada hasta el final:
+     * otra transacción que la quiera modificar espera en lugar de trabajar sobre una copia antigua.
+     * En MySQL es un SELECT ... FOR UPDATE; en JSON se toma el lock de escritor
+     * de ese ID.
+     * Fuera de una UnitOfWork es un findById normal.
+     */
+    T findByIdForUpdate(ID id);
+
+    /**
+     * findAllById bloqueando todas las entidades encontradas, igual que findByIdForUpdate.
+     * Por defecto, un findByIdForUpdate por ID; en MySQL es un solo SELECT ... IN (...) FOR UPDATE.
+     */
+    default List<T> findAllByIdForUpdate(Iterable<ID> ids) {
+        List<T> list = new ArrayList<>();
+        for (ID id : ids) {
+            T e = findByIdForUpdate(id);
+            if (e != null) list.add(e);
+        }
+        return list;
+    }
+}
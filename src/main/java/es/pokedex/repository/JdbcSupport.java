@@ -0,0 +1,335 @@
+package es.pokedex.repository;
+
+import es.pokedex.util.DataBaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Utilidades comunes de los repositorios MySQL.
+ */
+final class JdbcSupport {
+
+    // Filas por executeBatch / parámetros por IN (...)
+    static final int BATCH_SIZE = 1000;
+
+    private JdbcSupport() {}
+
+    /**
+     * Pone los parámetros de una consulta.
+     */
+    @FunctionalInterface
+    interface Binder {
+        void bind(PreparedStatement ps) throws SQLException;
+    }
+
+    /**
+     * Convierte la fila actual del ResultSet en una entidad.
+     */
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Completa un lote de entidades ya leídas (p.ej. sus relaciones N:M) con la misma conexión.
+     */
+    @FunctionalInterface
+    interface ChunkLoader<T> {
+        void load(Connection con, List<T> chunk) throws SQLException;
+    }
+
+    /**
+     * Escapa los comodines de LIKE (% y _) para buscar un prefijo literal: LIKE 'prefijo%'.
+     */
+    static String likePrefix(String prefix) {
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    /**
+     * Devuelve "?, ?, ?" con n marcadores, para consultas IN (...).
+     */
+    static String placeholders(int n) {
+        return String.join(", ", Collections.nCopies(n, "?"));
+    }
+
+    /**
+     * Pasa un Iterable a lista sin repetidos (conserva el orden).
+     */
+    static <T> List<T> distinct(Iterable<T> items) {
+        Set<T> set = new LinkedHashSet<>();
+        items.forEach(set::add);
+        return new ArrayList<>(set);
+    }
+
+    /**
+     * Parte una lista en trozos de como mucho BATCH_SIZE elementos.
+     */
+    static <T> List<List<T>> chunks(List<T> list) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < list.size(); i += BATCH_SIZE) {
+            chunks.add(list.subList(i, Math.min(i + BATCH_SIZE, list.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * Ejecuta un recuento "SELECT clave, COUNT(*) ... GROUP BY clave" cuya clave es el nombre de un enum.
+     */
+    static <E extends Enum<E>> Map<E, Long> countBy(String sql, Class<E> keyType, String errorMessage) {
+        Map<E, Long> result = new EnumMap<>(keyType);
+
+        try (Connection con = DataBaseConnection.getConnection();
+             Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+
+            while (rs.next()) result.put(Enum.valueOf(keyType, rs.getString(1)), rs.getLong(2));
+
+        } catch (SQLException e) {
+            throw new RuntimeException(errorMessage, e);
+        }
+
+        return result;
+    }
+
+    // ---------------- Relaciones N:M (tablas intermedias) ----------------
+
+    // Columna de las tablas intermedias con el orden de cada ID en la lista del propietario
+    private static final String POSITION_COL = "posicion";
+
+    /**
+     * Carga una relación N:M para varios propietarios a la vez:
+     * una consulta IN (...) por cada BATCH_SIZE propietarios, nunca una por entidad.
+     * Devuelve propietario → IDs relacionados en el orden de la lista (los que no tienen ninguno no aparecen).
+     */
+    static Map<String, List<String>> loadRelation(Connection con, String table, String ownerCol, String targetCol,
+                                                  Collection<String> ownerIds) throws SQLException {
+        return loadRelation(con, table, ownerCol, targetCol, ownerIds, false);
+    }
+
+    /**
+     * Como loadRelation; con forUpdate las filas se leen con FOR UPDATE: dentro de una transacción se ve
+     * siempre lo último confirmado (no la foto de la transacción) y quedan bloqueadas hasta el final.
+     */
+    static Map<String, List<String>> loadRelation(Connection con, String table, String ownerCol, String targetCol,
+                                                  Collection<String> ownerIds, boolean forUpdate) throws SQLException {
+        Map<String, List<String>> result = new HashMap<>();
+        loadRelationRows(con, table, ownerCol, targetCol, ownerIds, forUpdate,
+                (owner, target, position) -> result.computeIfAbsent(owner, k -> new ArrayList<>()).add(target));
+        return result;
+    }
+
+    private interface RelationRow {
+        void accept(String owner, String target, int position);
+    }
+
+    // Filas de la relación de esos propietarios, de cada propietario en orden de posición
+    private static void loadRelationRows(Connection con, String table, String ownerCol, String targetCol,
+                                         Collection<String> ownerIds, boolean forUpdate, RelationRow row) throws SQLException {
+        for (List<String> chunk : chunks(new ArrayList<>(ownerIds))) {
+            String sql = "SELECT " + ownerCol + ", " + targetCol + ", " + POSITION_COL + " FROM " + table
+                    + " WHERE " + ownerCol + " IN (" + placeholders(chunk.size()) + ")"
+                    + " ORDER BY " + ownerCol + ", " + POSITION_COL
+                    + (forUpdate ? " FOR UPDATE" : "");
+            try (PreparedStatement ps = con.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) ps.setString(i + 1, chunk.get(i));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) row.accept(rs.getString(1), rs.getString(2), rs.getInt(3));
+                }
+            }
+        }
+    }
+
+    /**
+     * Deja la relación N:M de cada propietario igual que en desired (orden incluido) escribiendo solo
+     * la diferencia: un lote de DELETE con los pares que sobran, uno de UPDATE con los que cambian
+     * de posición y uno de INSERT con los que faltan.
+     * El INSERT es normal (no IGNORE): un ID que no existe hace fallar la clave ajena y el save entero.
+     * Debe llamarse dentro de una transacción.
+     */
+    static void writeRelation(Connection con, String table, String ownerCol, String targetCol,
+                              Map<String, ? extends Collection<String>> desired) throws SQLException {
+        if (desired.isEmpty()) return;
+        Map<String, Map<String, Integer>> current = new HashMap<>();
+        loadRelationRows(con, table, ownerCol, targetCol, desired.keySet(), false,
+                (owner, target, position) -> current.computeIfAbsent(owner, k -> new HashMap<>()).put(target, position));
+
+        String where = " WHERE " + ownerCol + " = ? AND " + targetCol + " = ?";
+        String deleteSql = "DELETE FROM " + table + where;
+        String updateSql = "UPDATE " + table + " SET " + POSITION_COL + " = ?" + where;
+        String insertSql = "INSERT INTO " + table + " (" + ownerCol + ", " + targetCol + ", " + POSITION_COL + ") VALUES (?, ?, ?)";
+
+        try (PreparedStatement del = con.prepareStatement(deleteSql);
+             PreparedStatement upd = con.prepareStatement(updateSql);
+             PreparedStatement ins = con.prepareStatement(insertSql)) {
+            int deletes = 0, updates = 0, inserts = 0;
+
+            for (Map.Entry<String, ? extends Collection<String>> e : desired.entrySet()) {
+                List<String> want = new ArrayList<>(new LinkedHashSet<>(e.getValue()));
+                Map<String, Integer> have = current.getOrDefault(e.getKey(), Map.of());
+
+                for (String target : have.keySet()) {
+                    if (want.contains(target)) continue;
+                    del.setString(1, e.getKey());
+                    del.setString(2, target);
+                    del.addBatch();
+                    if (++deletes % BATCH_SIZE == 0) del.executeBatch();
+                }
+                for (int pos = 0; pos < want.size(); pos++) {
+                    String target = want.get(pos);
+                    Integer old = have.get(target);
+                    if (old == null) {
+                        ins.setString(1, e.getKey());
+                        ins.setString(2, target);
+                        ins.setInt(3, pos);
+                        ins.addBatch();
+                        if (++inserts % BATCH_SIZE == 0) ins.executeBatch();
+                    } else if (old != pos) {
+                        upd.setInt(1, pos);
+                        upd.setString(2, e.getKey());
+                        upd.setString(3, target);
+                        upd.addBatch();
+                        if (++updates % BATCH_SIZE == 0) upd.executeBatch();
+                    }
+                }
+            }
+            if (deletes % BATCH_SIZE != 0) del.executeBatch();
+            if (updates % BATCH_SIZE != 0) upd.executeBatch();
+            if (inserts % BATCH_SIZE != 0) ins.executeBatch();
+        }
+    }
+
+    // ---------------- Listados paginados ----------------
+
+    /**
+     * Página de una tabla ordenada por su ID: ORDER BY id LIMIT ? OFFSET ?, completada con loader.
+     */
+    static <T> List<T> page(String table, String idCol, int offset, int limit, Orden orden,
+                            RowMapper<T> mapper, ChunkLoader<T> loader) {
+        Paging.checkPage(offset, limit);
+        String sql = "SELECT * FROM " + table + " ORDER BY " + idCol + " " + orden.name() + " LIMIT ? OFFSET ?";
+        return list(sql, ps -> {
+            ps.setInt(1, limit);
+            ps.setInt(2, offset);
+        }, mapper, loader, "Error leyendo página de " + table);
+    }
+
+    /**
+     * Recorre una tabla por clave: cada lote es "WHERE id > última ORDER BY id LIMIT batchSize", que
+     * resuelve la clave primaria sin saltarse filas como OFFSET. Cada lote usa una conexión del pool solo
+     * mientras se lee, así que el Stream no retiene ninguna y no hace falta cerrarlo.
+     */
+    static <T> Stream<T> keyset(String table, String idCol, String afterId, int batchSize,
+                                RowMapper<T> mapper, ChunkLoader<T> loader, Function<T, String> idOf) {
+        String first = "SELECT * FROM " + table + " ORDER BY " + idCol + " LIMIT ?";
+        String after = "SELECT * FROM " + table + " WHERE " + idCol + " > ? ORDER BY " + idCol + " LIMIT ?";
+        return Paging.keyset(afterId, batchSize, (last, n) -> last == null
+                ? list(first, ps -> ps.setInt(1, n), mapper, loader, "Error recorriendo " + table)
+                : list(after, ps -> {
+                    ps.setString(1, last);
+                    ps.setInt(2, n);
+                }, mapper, loader, "Error recorriendo " + table), idOf);
+    }
+
+    /**
+     * Ejecuta una consulta con una conexión del pool y devuelve todas sus filas, completadas con loader.
+     */
+    static <T> List<T> list(String sql, Binder binder, RowMapper<T> mapper, ChunkLoader<T> loader, String errorMessage) {
+        List<T> list = new ArrayList<>();
+
+        try (Connection con = DataBaseConnection.getConnection();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+
+            binder.bind(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) list.add(mapper.map(rs));
+            }
+            loader.load(con, list);
+
+        } catch (SQLException e) {
+            throw new RuntimeException(errorMessage, e);
+        }
+
+        return list;
+    }
+
+    // ---------------- Lectura en streaming ----------------
+
+    /**
+     * Ejecuta una consulta y devuelve sus filas como Stream perezoso.
+     * El ResultSet se lee por bloques (setFetchSize + useCursorFetch en MySQL), de BATCH_SIZE en BATCH_SIZE
+     * filas, y cada bloque se completa con loader antes de entregarse: memoria constante sea cual sea el tamaño.
+     * La conexión queda abierta hasta cerrar el Stream: usar siempre try-with-resources.
+     */
+    static <T> Stream<T> stream(String sql, Binder binder, RowMapper<T> mapper, ChunkLoader<T> loader) {
+        Connection con = null;
+        PreparedStatement ps = null;
+        ResultSet rs;
+        try {
+            con = DataBaseConnection.getConnection();
+            ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(BATCH_SIZE);
+            binder.bind(ps);
+            rs = ps.executeQuery();
+        } catch (SQLException e) {
+            closeQuietly(ps, con);
+            throw new RuntimeException("Error abriendo consulta en streaming", e);
+        }
+
+        Connection connection = con;
+        PreparedStatement statement = ps;
+        Iterator<List<T>> chunks = new Iterator<>() {
+            private List<T> next;
+            private boolean finished;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null && !finished) next = readChunk();
+                return next != null;
+            }
+
+            @Override
+            public List<T> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                List<T> chunk = next;
+                next = null;
+                return chunk;
+            }
+
+            private List<T> readChunk() {
+                try {
+                    List<T> chunk = new ArrayList<>();
+                    while (chunk.size() < BATCH_SIZE && rs.next()) chunk.add(mapper.map(rs));
+                    if (chunk.size() < BATCH_SIZE) finished = true;
+                    if (chunk.isEmpty()) return null;
+                    loader.load(connection, chunk);
+                    return chunk;
+                } catch (SQLException e) {
+                    throw new RuntimeException("Error leyendo consulta en streaming", e);
+                }
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(chunks, Spliterator.ORDERED), false)
+                .flatMap(List::stream)
+                .onClose(() -> closeQuietly(statement, connection));
+    }
+
+    private static void closeQuietly(AutoCloseable... resources) {
+        for (AutoCloseable r : resources) {
+            if (r == null) continue;
+            try {
+                r.close();
+            } catch (Exception ignored) {
+                // Se está cerrando: no hay nada más que hacer
+            }
+        }
+    }
+}
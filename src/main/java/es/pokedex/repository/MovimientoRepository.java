@@ -3,144 +3,137 @@ package es.pokedex.repository;
 import com.fasterxml.jackson.core.type.TypeReference;
 import es.pokedex.domain.Movimiento;
 import es.pokedex.domain.TipoPokemon;
-import es.pokedex.util.JsonFileStore;
 
-import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-public class MovimientoRepository implements IRepositorioExtend<Movimiento, String> {
+public class MovimientoRepository extends AbstractJsonRepository<Movimiento>
+        implements IRepositorioPorTipo, IRepositorioPotencias {
 
-    private final Path path;                  // Ruta del fichero movimientos.json
-    private final JsonFileStore store = new JsonFileStore();   // Utilidad para leer/escribir JSON
+    // Índice secundario: tipo → movimientos de ese tipo
+    private final SecondaryIndex<TipoPokemon> byTipo = SecondaryIndex.forEnum(TipoPokemon.class);
+    // Índice de prefijos por nombre (autocompletado)
+    private final PrefixIndex byNombre = new PrefixIndex();
+    // Recuento tipo → potencia → nº de movimientos, para los histogramas sin recorrer los movimientos
+    private final Map<TipoPokemon, TreeMap<Integer, Long>> potencias = new EnumMap<>(TipoPokemon.class);
 
     /**
      * Constructor: fija el path al archivo de movimientos dentro del directorio de datos.
      */
     public MovimientoRepository(String dataDir) {
-        this.path = Paths.get(dataDir, "movimientos.json");
+        this(dataDir, false);
     }
 
     /**
-     * Carga el listado de movimientos desde el JSON.
-     * synchronized -> asegura que no haya lecturas/escrituras simultáneas.
+     * Constructor con modo journal: los cambios van a movimientos.json.log y se compactan en segundo plano.
      */
-    private synchronized List<Movimiento> load() {
-        List<Movimiento> list = store.readList(path, new TypeReference<>(){});
-        return new ArrayList<>(list);  // copia defensiva
+    public MovimientoRepository(String dataDir, boolean journaled) {
+        this(dataDir, journaled, false);
     }
 
     /**
-     * Sobrescribe todo el fichero con la lista recibida.
+     * Constructor con formato binario: los datos van a movimientos.bin (ver SnapshotCodecs) en lugar del JSON.
      */
-    private synchronized void saveAll(List<Movimiento> list) {
-        store.writeList(path, list);
+    public MovimientoRepository(String dataDir, boolean journaled, boolean binary) {
+        super(Paths.get(dataDir, binary ? "movimientos.bin" : "movimientos.json"), new TypeReference<>(){},
+                binary ? SnapshotCodecs.MOVIMIENTO : null, journaled);
     }
 
-    // ---------------- Implementación CRUD ----------------
-
     @Override
-    public long count() { return load().size(); }
+    protected String idOf(Movimiento m) { return m.getId(); }
 
-    /**
-     * Borra un movimiento por ID si existe.
-     */
     @Override
-    public synchronized void deleteById(String id) {
-        List<Movimiento> all = load();
-        boolean removed = all.removeIf(m -> m.getId().equals(id));
-        if (removed) saveAll(all);
+    protected Movimiento copyOf(Movimiento m) {
+        return new Movimiento(m.getId(), m.getNombre(), m.getTipo(), m.getPotencia());
     }
 
-    /**
-     * Borra todos los movimientos.
-     */
     @Override
-    public synchronized void deleteAll() {
-        saveAll(new ArrayList<>());
+    protected void indexAdd(Movimiento m) {
+        byTipo.add(m.getTipo(), m.getId());
+        byNombre.add(m.getNombre(), m.getId());
+        potencias.computeIfAbsent(m.getTipo(), t -> new TreeMap<>()).merge(m.getPotencia(), 1L, Long::sum);
     }
 
-    public Map<TipoPokemon, Long> countByTipo() {
-        return Map.of(); // o tu implementación SQL
+    @Override
+    protected void indexRemove(Movimiento m) {
+        byTipo.remove(m.getTipo(), m.getId());
+        byNombre.remove(m.getNombre(), m.getId());
+        TreeMap<Integer, Long> byPotencia = potencias.get(m.getTipo());
+        if (byPotencia == null) return;
+        byPotencia.computeIfPresent(m.getPotencia(), (k, n) -> n == 1 ? null : n - 1);
+        if (byPotencia.isEmpty()) potencias.remove(m.getTipo());
     }
 
-
-    /**
-     * Comprueba si un movimiento existe por ID.
-     */
     @Override
-    public boolean existsById(String id) {
-        return load().stream().anyMatch(m -> m.getId().equals(id));
+    protected void indexClear() {
+        byTipo.clear();
+        byNombre.clear();
+        potencias.clear();
     }
 
     /**
-     * Devuelve un movimiento por ID o null si no existe.
+     * Devuelve un mapa Tipo → nº de movimientos de ese tipo.
      */
     @Override
-    public Movimiento findById(String id) {
-        return load().stream()
-                .filter(m -> m.getId().equals(id))
-                .findFirst()
-                .orElse(null);
+    public Map<TipoPokemon, Long> countByTipo() {
+        return indexed(() -> byTipo.counts(new EnumMap<>(TipoPokemon.class)));
     }
 
     /**
-     * Guarda o actualiza un movimiento.
-     * Si existe -> actualiza nombre, tipo y potencia.
-     * Si no existe -> inserta uno nuevo.
+     * Histograma de potencias por tipo, agrupando el recuento por potencia que se mantiene al escribir:
+     * cuesta O(nº de potencias distintas), no O(nº de movimientos).
      */
     @Override
-    public synchronized <S extends Movimiento> S save(S entity) {
-        List<Movimiento> all = load();
-
-        Optional<Movimiento> existing =
-                all.stream().filter(m -> m.getId().equals(entity.getId())).findFirst();
-
-        if (existing.isPresent()) {
-            // Actualización
-            Movimiento m = existing.get();
-            m.setNombre(entity.getNombre());
-            m.setTipo(entity.getTipo());
-            m.setPotencia(entity.getPotencia());
-        } else {
-            // Inserción
-            all.add(entity);
-        }
-
-        saveAll(all);
-        return entity;
+    public Map<TipoPokemon, SortedMap<Integer, Long>> potenciaHistogram(int anchura) {
+        if (anchura <= 0) throw new IllegalArgumentException("anchura debe ser > 0");
+        return indexed(() -> {
+            Map<TipoPokemon, SortedMap<Integer, Long>> result = new EnumMap<>(TipoPokemon.class);
+            potencias.forEach((tipo, byPotencia) -> {
+                SortedMap<Integer, Long> buckets = new TreeMap<>();
+                byPotencia.forEach((potencia, n) -> buckets.merge(potencia / anchura * anchura, n, Long::sum));
+                result.put(tipo, buckets);
+            });
+            return result;
+        });
     }
 
-    @Override
-    public Iterable<Movimiento> findAll() { return load(); }
-
-    @Override
-    public Optional<Movimiento> findByIdOptional(String id) {
-        return Optional.ofNullable(findById(id));
-    }
-
-    @Override
-    public List<Movimiento> findAllToList() { return load(); }
-
     // ---------------- Métodos semánticos extras ----------------
 
     /**
      * Devuelve movimientos filtrados por tipo Pokémon.
      */
     public List<Movimiento> findByTipo(TipoPokemon tipo) {
-        return load().stream()
-                .filter(m -> m.getTipo() == tipo)
-                .collect(Collectors.toList());
+        return indexed(() -> copiesOf(byTipo.get(tipo)));
     }
 
     /**
-     * Devuelve movimientos cuyo nombre empieza por un prefijo dado.
+     * Devuelve movimientos cuyo nombre empieza por un prefijo dado (sin distinguir mayúsculas ni acentos),
+     * ordenados por nombre.
      */
     public List<Movimiento> findByNombrePrefix(String prefix) {
-        String p = prefix.toLowerCase();
-        return load().stream()
-                .filter(m -> m.getNombre().toLowerCase().startsWith(p))
-                .collect(Collectors.toList());
+        return findByNombrePrefix(prefix, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Como findByNombrePrefix pero devolviendo como mucho limit resultados.
+     */
+    public List<Movimiento> findByNombrePrefix(String prefix, int limit) {
+        try (Stream<Movimiento> s = streamByNombrePrefix(prefix)) {
+            return s.limit(limit).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Recorre de forma perezosa los movimientos cuyo nombre empieza por el prefijo, ordenados por nombre.
+     * Solo se copian los movimientos que se llegan a consumir.
+     */
+    public Stream<Movimiento> streamByNombrePrefix(String prefix) {
+        refresh();
+        String p = PrefixIndex.normalize(prefix);
+        return byNombre.idsWithPrefix(prefix)
+                .map(this::findById)
+                .filter(m -> m != null && PrefixIndex.normalize(m.getNombre()).startsWith(p));
     }
 }
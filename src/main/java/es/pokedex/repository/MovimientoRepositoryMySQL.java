@@ -5,12 +5,33 @@ import es.pokedex.domain.TipoPokemon;
 import es.pokedex.util.DataBaseConnection;
 
 import java.sql.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
-public class MovimientoRepositoryMySQL implements IRepositorioExtend<Movimiento, String> {
+public class MovimientoRepositoryMySQL implements IRepositorioAsync<Movimiento, String>, IRepositorioTransaccional<Movimiento, String>,
+        IRepositorioPorTipo, IRepositorioPotencias {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO movimiento (id, nombre, tipo, potencia)
+            VALUES (?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                nombre = VALUES(nombre),
+                tipo = VALUES(tipo),
+                potencia = VALUES(potencia)
+            """;
+
+    /**
+     * Convierte la fila actual del ResultSet en un Movimiento.
+     */
+    private static Movimiento mapRow(ResultSet rs) throws SQLException {
+        return new Movimiento(
+                rs.getString("id"),
+                rs.getString("nombre"),
+                TipoPokemon.valueOf(rs.getString("tipo")),
+                rs.getInt("potencia")
+        );
+    }
 
     @Override
     public Movimiento findById(String id) {
@@ -24,12 +45,7 @@ public class MovimientoRepositoryMySQL implements IRepositorioExtend<Movimiento,
             ResultSet rs = ps.executeQuery();
 
             if (rs.next()) {
-                return new Movimiento(
-                        rs.getString("id"),
-                        rs.getString("nombre"),
-                        TipoPokemon.valueOf(rs.getString("tipo")),
-                        rs.getInt("potencia")
-                );
+                return mapRow(rs);
             }
             return null;
 
@@ -38,6 +54,16 @@ public class MovimientoRepositoryMySQL implements IRepositorioExtend<Movimiento,
         }
     }
 
+    /**
+     * findById con SELECT ... FOR UPDATE: dentro de una UnitOfWork el movimiento queda bloqueado hasta el commit.
+     */
+    @Override
+    public Movimiento findByIdForUpdate(String id) {
+        List<Movimiento> found = JdbcSupport.list("SELECT * FROM movimiento WHERE id = ? FOR UPDATE",
+                ps -> ps.setString(1, id), MovimientoRepositoryMySQL::mapRow, (con, list) -> {}, "Error bloqueando movimiento");
+        return found.isEmpty() ? null : found.get(0);
+    }
+
     @Override
     public Optional<Movimiento> findByIdOptional(String id) {
         return Optional.ofNullable(findById(id));
@@ -54,12 +80,7 @@ public class MovimientoRepositoryMySQL implements IRepositorioExtend<Movimiento,
              ResultSet rs = st.executeQuery(sql)) {
 
             while (rs.next()) {
-                list.add(new Movimiento(
-                        rs.getString("id"),
-                        rs.getString("nombre"),
-                        TipoPokemon.valueOf(rs.getString("tipo")),
-                        rs.getInt("potencia")
-                ));
+                list.add(mapRow(rs));
             }
 
         } catch (SQLException e) {
@@ -76,17 +97,8 @@ public class MovimientoRepositoryMySQL implements IRepositorioExtend<Movimiento,
     @Override
     public <S extends Movimiento> S save(S entity) {
 
-        String sql = """
-            INSERT INTO movimiento (id, nombre, tipo, potencia)
-            VALUES (?, ?, ?, ?)
-            ON DUPLICATE KEY UPDATE
-                nombre = VALUES(nombre),
-                tipo = VALUES(tipo),
-                potencia = VALUES(potencia)
-            """;
-
         try (Connection con = DataBaseConnection.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
+             PreparedStatement ps = con.prepareStatement(UPSERT_SQL)) {
 
             ps.setString(1, entity.getId());
             ps.setString(2, entity.getNombre());
@@ -137,14 +149,218 @@ public class MovimientoRepositoryMySQL implements IRepositorioExtend<Movimiento,
         return findById(id) != null;
     }
 
+    /**
+     * Operaciones asíncronas en hilos virtuales, como mucho tantas a la vez como conexiones tiene el pool.
+     */
+    @Override
+    public Executor asyncExecutor() {
+        return AsyncSupport.database();
+    }
+
     @Override
     public long count() {
         return findAllToList().size();
     }
 
-    // ===== OBLIGATORIO POR IRepositorioExtend =====
+    // ---------------- Listados paginados ----------------
+
+    /**
+     * Página ordenada por ID con ORDER BY ... LIMIT ? OFFSET ?.
+     */
+    @Override
+    public List<Movimiento> findPage(int offset, int limit, Orden orden) {
+        return JdbcSupport.page("movimiento", "id", offset, limit, orden, MovimientoRepositoryMySQL::mapRow, (con, chunk) -> {});
+    }
+
+    /**
+     * Recorrido por clave: lotes de "WHERE id > ? ORDER BY id LIMIT batchSize".
+     */
+    @Override
+    public Stream<Movimiento> streamAll(String afterId, int batchSize) {
+        return JdbcSupport.keyset("movimiento", "id", afterId, batchSize, MovimientoRepositoryMySQL::mapRow, (con, chunk) -> {}, Movimiento::getId);
+    }
+
+    // ---------------- Operaciones por lotes ----------------
+
+    /**
+     * Busca varios movimientos con una consulta IN (...) por cada BATCH_SIZE IDs.
+     */
+    @Override
+    public List<Movimiento> findAllById(Iterable<String> ids) {
+
+        List<Movimiento> list = new ArrayList<>();
+
+        try (Connection con = DataBaseConnection.getConnection()) {
+            for (List<String> chunk : JdbcSupport.chunks(JdbcSupport.distinct(ids))) {
+                String sql = "SELECT * FROM movimiento WHERE id IN (" + JdbcSupport.placeholders(chunk.size()) + ")";
+                try (PreparedStatement ps = con.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) ps.setString(i + 1, chunk.get(i));
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) list.add(mapRow(rs));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error buscando movimientos", e);
+        }
+
+        return list;
+    }
+
+    /**
+     * Inserta/actualiza varios movimientos en una transacción con addBatch/executeBatch.
+     * Con rewriteBatchedStatements=true en la URL el driver lo envía como INSERT multi-fila.
+     */
+    @Override
+    public <S extends Movimiento> List<S> saveAll(Iterable<S> entities) {
+
+        List<S> list = new ArrayList<>();
+        entities.forEach(list::add);
+        if (list.isEmpty()) return list;
+
+        try (Connection con = DataBaseConnection.getConnection()) {
+            con.setAutoCommit(false);
+            try (PreparedStatement ps = con.prepareStatement(UPSERT_SQL)) {
+                for (List<S> chunk : JdbcSupport.chunks(list)) {
+                    for (S entity : chunk) {
+                        ps.setString(1, entity.getId());
+                        ps.setString(2, entity.getNombre());
+                        ps.setString(3, entity.getTipo().name());
+                        ps.setInt(4, entity.getPotencia());
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
+            return list;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error guardando movimientos", e);
+        }
+    }
+
+    /**
+     * Borra varios movimientos en una transacción con addBatch/executeBatch.
+     */
+    @Override
+    public void deleteAllById(Iterable<String> ids) {
+
+        String sql = "DELETE FROM movimiento WHERE id = ?";
+
+        try (Connection con = DataBaseConnection.getConnection()) {
+            con.setAutoCommit(false);
+            try (PreparedStatement ps = con.prepareStatement(sql)) {
+                for (List<String> chunk : JdbcSupport.chunks(JdbcSupport.distinct(ids))) {
+                    for (String id : chunk) {
+                        ps.setString(1, id);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error borrando movimientos", e);
+        }
+    }
+
+    // ---------------- Búsqueda por prefijo ----------------
+
+    /**
+     * Movimientos cuyo nombre empieza por el prefijo, ordenados por nombre.
+     * Usa el índice de nombre con LIKE 'prefijo%'; con la colación por defecto (utf8mb4_0900_ai_ci)
+     * no distingue mayúsculas ni acentos, igual que la versión JSON.
+     */
+    public List<Movimiento> findByNombrePrefix(String prefix) {
+        return findByNombrePrefix(prefix, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Como findByNombrePrefix pero devolviendo como mucho limit resultados (LIMIT en la consulta).
+     */
+    public List<Movimiento> findByNombrePrefix(String prefix, int limit) {
+
+        List<Movimiento> list = new ArrayList<>();
+        String sql = "SELECT * FROM movimiento WHERE nombre LIKE ? ORDER BY nombre, id LIMIT ?";
+
+        try (Connection con = DataBaseConnection.getConnection();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+
+            ps.setString(1, JdbcSupport.likePrefix(prefix));
+            ps.setInt(2, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) list.add(mapRow(rs));
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error buscando movimientos por prefijo", e);
+        }
+
+        return list;
+    }
+
+    /**
+     * Recorre de forma perezosa los movimientos cuyo nombre empieza por el prefijo, ordenados por nombre.
+     * Mantiene la conexión abierta hasta cerrar el Stream (usar try-with-resources).
+     */
+    public Stream<Movimiento> streamByNombrePrefix(String prefix) {
+        return JdbcSupport.stream(
+                "SELECT * FROM movimiento WHERE nombre LIKE ? ORDER BY nombre, id",
+                ps -> ps.setString(1, JdbcSupport.likePrefix(prefix)),
+                MovimientoRepositoryMySQL::mapRow,
+                (con, chunk) -> {});
+    }
+
+    // ---------------- Reportes ----------------
+
+    /**
+     * Nº de movimientos por tipo con un GROUP BY.
+     */
+    @Override
     public Map<TipoPokemon, Long> countByTipo() {
-        return Map.of(); // o tu implementación SQL
+        return JdbcSupport.countBy("SELECT tipo, COUNT(*) FROM movimiento GROUP BY tipo",
+                TipoPokemon.class, "Error contando movimientos por tipo");
+    }
+
+    /**
+     * Histograma de potencias por tipo: el servidor agrupa por tipo e intervalo y solo devuelve una fila por cada uno.
+     */
+    @Override
+    public Map<TipoPokemon, SortedMap<Integer, Long>> potenciaHistogram(int anchura) {
+        if (anchura <= 0) throw new IllegalArgumentException("anchura debe ser > 0");
+
+        Map<TipoPokemon, SortedMap<Integer, Long>> result = new EnumMap<>(TipoPokemon.class);
+        String sql = """
+                SELECT tipo, desde, COUNT(*)
+                FROM (SELECT tipo, FLOOR(potencia / ?) * ? AS desde FROM movimiento) m
+                GROUP BY tipo, desde
+                """;
+
+        try (Connection con = DataBaseConnection.getConnection();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+
+            ps.setInt(1, anchura);
+            ps.setInt(2, anchura);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    result.computeIfAbsent(TipoPokemon.valueOf(rs.getString(1)), t -> new TreeMap<>())
+                            .put(rs.getInt(2), rs.getLong(3));
+                }
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error calculando histograma de potencias", e);
+        }
+
+        return result;
     }
 
 }
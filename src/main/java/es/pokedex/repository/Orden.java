@@ -0,0 +1,9 @@
+package es.pokedex.repository;
+
+/**
+ * Sentido de los listados paginados (findPage), que siempre van ordenados por ID.
+ */
+public enum Orden {
+    ASC,
+    DESC
+}
@@ -0,0 +1,61 @@
+package es.pokedex.repository;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Listados por páginas comunes a los repositorios JSON y MySQL.
+ */
+final class Paging {
+
+    private Paging() {}
+
+    static void checkPage(int offset, int limit) {
+        if (offset < 0) throw new IllegalArgumentException("offset debe ser >= 0");
+        if (limit < 0) throw new IllegalArgumentException("limit debe ser >= 0");
+    }
+
+    /**
+     * Stream perezoso por clave (keyset): cada lote son las batchSize entidades siguientes a la última ID
+     * entregada, pedidas a nextBatch(últimaId, batchSize) solo cuando se consume el lote anterior.
+     * No hay nada abierto entre lotes, y los cambios concurrentes no hacen saltar ni repetir entidades
+     * como pasaría con un offset.
+     */
+    static <T, ID> Stream<T> keyset(ID afterId, int batchSize, BiFunction<ID, Integer, List<T>> nextBatch,
+                                   Function<T, ID> idOf) {
+        if (batchSize <= 0) throw new IllegalArgumentException("batchSize debe ser > 0");
+
+        Iterator<List<T>> batches = new Iterator<>() {
+            private ID last = afterId;
+            private List<T> next;
+            private boolean finished;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null && !finished) {
+                    List<T> batch = nextBatch.apply(last, batchSize);
+                    if (batch.size() < batchSize) finished = true;
+                    if (!batch.isEmpty()) {
+                        last = idOf.apply(batch.get(batch.size() - 1));
+                        next = batch;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public List<T> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                List<T> batch = next;
+                next = null;
+                return batch;
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(batches, Spliterator.ORDERED), false)
+                .flatMap(List::stream);
+    }
+}
@@ -1,151 +1,126 @@
 package es.pokedex.repository;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import es.pokedex.domain.Generaciones;
 import es.pokedex.domain.Pokemon;
+import es.pokedex.domain.Region;
 import es.pokedex.domain.TipoPokemon;
-import es.pokedex.util.JsonFileStore;
 
-import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.stream.Collectors;
 
-public class PokemonRepository implements IRepositorioExtend<Pokemon, String> {
+public class PokemonRepository extends AbstractJsonRepository<Pokemon> implements IRepositorioReferencias<String>, IRepositorioPorTipo,
+        IRepositorioPorGeneracion<Pokemon> {
 
-    private final Path path;                     // Ruta al fichero pokemons.json
-    private final JsonFileStore store = new JsonFileStore(); // Utilidad para cargar/guardar JSON
+    // Índices secundarios: tipo → Pokémon y movimiento → Pokémon que lo usan
+    private final SecondaryIndex<TipoPokemon> byTipo = SecondaryIndex.forEnum(TipoPokemon.class);
+    private final SecondaryIndex<String> byMovimiento = SecondaryIndex.hashed();
+    private final Generaciones generaciones;   // Rango de números de cada región, para findByGeneracion
 
     /**
-     * Constructor: define dónde se almacenarán los datos del repositorio.
+     * Constructor: define dónde se almacenarán los datos del repositorio (pokemons.json).
      */
     public PokemonRepository(String dataDir) {
-        this.path = Paths.get(dataDir, "pokemons.json");
+        this(dataDir, false);
     }
 
     /**
-     * Carga la lista completa de Pokemons desde el JSON.
-     * synchronized evita condiciones de carrera al leer/escribir.
+     * Constructor con modo journal: los cambios van a pokemons.json.log y se compactan en segundo plano.
      */
-    private synchronized List<Pokemon> load() {
-        List<Pokemon> list = store.readList(path, new TypeReference<>(){});
-        return new ArrayList<>(list); // se devuelve una copia
+    public PokemonRepository(String dataDir, boolean journaled) {
+        this(dataDir, journaled, false);
     }
 
     /**
-     * Guarda toda la lista sobrescribiendo el fichero JSON.
+     * Constructor con formato binario: los datos van a pokemons.bin (ver SnapshotCodecs) en lugar del JSON.
      */
-    private synchronized void saveAll(List<Pokemon> list) {
-        store.writeList(path, list);
+    public PokemonRepository(String dataDir, boolean journaled, boolean binary) {
+        this(dataDir, journaled, binary, Generaciones.shared());
     }
 
-    // ---------------- Implementación CRUD ----------------
-
-    @Override
-    public long count() { return load().size(); }
-
     /**
-     * Borra un Pokémon por su número de Pokédex.
+     * Constructor con el catálogo de generaciones que usa findByGeneracion.
      */
-    @Override
-    public synchronized void deleteById(String id) {
-        List<Pokemon> all = load();
-        boolean removed = all.removeIf(p -> p.getPokedexNumber().equals(id));
-        if (removed) saveAll(all);
+    public PokemonRepository(String dataDir, boolean journaled, boolean binary, Generaciones generaciones) {
+        super(Paths.get(dataDir, binary ? "pokemons.bin" : "pokemons.json"), new TypeReference<>(){},
+                binary ? SnapshotCodecs.POKEMON : null, journaled);
+        this.generaciones = generaciones;
     }
 
-    /**
-     * Borra todos los Pokémon (fichero vacío).
-     */
     @Override
-    public synchronized void deleteAll() {
-        saveAll(new ArrayList<>());
-    }
+    protected String idOf(Pokemon p) { return p.getPokedexNumber(); }
 
-    /**
-     * Comprueba si existe un Pokémon por ID.
-     */
     @Override
-    public boolean existsById(String id) {
-        return load().stream().anyMatch(p -> p.getPokedexNumber().equals(id));
+    protected Pokemon copyOf(Pokemon p) {
+        return new Pokemon(p.getPokedexNumber(), p.getNombre(), p.getTipo(), p.getMovimientoIds());
     }
 
-    /**
-     * Busca un Pokémon por ID. Devuelve null si no existe.
-     */
     @Override
-    public Pokemon findById(String id) {
-        return load().stream()
-                .filter(p -> p.getPokedexNumber().equals(id))
-                .findFirst()
-                .orElse(null);
+    protected void indexAdd(Pokemon p) {
+        byTipo.add(p.getTipo(), p.getPokedexNumber());
+        for (String mov : p.getMovimientoIds()) byMovimiento.add(mov, p.getPokedexNumber());
     }
 
-    /**
-     * Inserta o actualiza un Pokémon.
-     * Si ya existe → actualiza nombre, tipo y movimientos.
-     * Si no existe → lo añade nuevo.
-     */
     @Override
-    public synchronized <S extends Pokemon> S save(S entity) {
-        List<Pokemon> all = load();
-
-        Optional<Pokemon> existing =
-                all.stream().filter(p -> p.getPokedexNumber().equals(entity.getPokedexNumber())).findFirst();
-
-        if (existing.isPresent()) {
-            // Actualización del Pokémon existente
-            Pokemon p = existing.get();
-            p.setNombre(entity.getNombre());
-            p.setTipo(entity.getTipo());
-
-            p.getMovimientoIds().clear();
-            p.getMovimientoIds().addAll(entity.getMovimientoIds());
-
-        } else {
-            // Inserción
-            all.add(entity);
-        }
-
-        saveAll(all);
-        return entity;
+    protected void indexRemove(Pokemon p) {
+        byTipo.remove(p.getTipo(), p.getPokedexNumber());
+        for (String mov : p.getMovimientoIds()) byMovimiento.remove(mov, p.getPokedexNumber());
     }
 
     @Override
-    public Iterable<Pokemon> findAll() { return load(); }
-
-    @Override
-    public Optional<Pokemon> findByIdOptional(String id) {
-        return Optional.ofNullable(findById(id));
+    protected void indexClear() {
+        byTipo.clear();
+        byMovimiento.clear();
     }
 
-    @Override
-    public List<Pokemon> findAllToList() { return load(); }
-
     // ---------------- Métodos semánticos del repositorio ----------------
 
     /**
      * Devuelve los Pokémon que sean del tipo indicado.
      */
     public List<Pokemon> findByTipo(TipoPokemon tipo) {
-        return load().stream()
-                .filter(p -> p.getTipo() == tipo)
-                .collect(Collectors.toList());
+        return indexed(() -> copiesOf(byTipo.get(tipo)));
+    }
+
+    /**
+     * Pokémon de la región: el rango de su generación en el índice de IDs ordenadas.
+     */
+    @Override
+    public List<Pokemon> findByGeneracion(Region region) {
+        Generaciones.Rango rango = generaciones.rangoOf(region);
+        if (rango == null) return new ArrayList<>();
+        return findIdRange(rango.desdeId(), rango.hastaId());
     }
 
     /**
-     * Devuelve un mapa Tipo → nº de Pokémon de ese tipo.
+     * Devuelve un mapa Tipo → nº de Pokémon de ese tipo. Sale del índice por tipo: O(nº de tipos).
      */
+    @Override
     public Map<TipoPokemon, Long> countByTipo() {
-        return load().stream()
-                .collect(Collectors.groupingBy(Pokemon::getTipo, Collectors.counting()));
+        return indexed(() -> byTipo.counts(new EnumMap<>(TipoPokemon.class)));
     }
 
     /**
      * Devuelve todos los Pokémon que tengan un movimiento concreto.
      */
     public List<Pokemon> findByMovimientoId(String movimientoId) {
-        return load().stream()
-                .filter(p -> p.getMovimientoIds().contains(movimientoId))
-                .collect(Collectors.toList());
+        return indexed(() -> copiesOf(byMovimiento.get(movimientoId)));
+    }
+
+    // ---------------- Métodos usados al borrar otras entidades ----------------
+
+    /**
+     * Quita un movimiento de todos los Pokémon que lo tienen.
+     * Usa el índice movimiento → Pokémon y guarda todos los cambios de una vez.
+     * Devuelve cuántos Pokémon fueron modificados.
+     */
+    public int removeMovimientoReferences(String movimientoId) {
+        return updateIndexed(() -> byMovimiento.get(movimientoId),
+                p -> p.getMovimientoIds().removeIf(id -> id.equals(movimientoId)));
+    }
+
+    @Override
+    public int removeReferences(String movimientoId) {
+        return removeMovimientoReferences(movimientoId);
     }
 }
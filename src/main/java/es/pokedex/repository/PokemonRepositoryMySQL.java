@@ -1,17 +1,92 @@
 package es.pokedex.repository;
 
+import es.pokedex.domain.Generaciones;
 import es.pokedex.domain.Movimiento;
 import es.pokedex.domain.Pokemon;
+import es.pokedex.domain.Region;
 import es.pokedex.domain.TipoPokemon;
 import es.pokedex.util.DataBaseConnection;
 
 import java.sql.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
-public class PokemonRepositoryMySQL implements IRepositorioExtend<Pokemon, String> {
+public class PokemonRepositoryMySQL implements IRepositorioAsync<Pokemon, String>, IRepositorioTransaccional<Pokemon, String>, IRepositorioReferencias<String>,
+        IRepositorioPorTipo, IRepositorioPorGeneracion<Pokemon> {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO pokemon (pokedex_number, nombre, tipo)
+            VALUES (?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                nombre = VALUES(nombre),
+                tipo = VALUES(tipo)
+            """;
+
+    // Tabla intermedia Pokémon ↔ movimientos (ver sql/schema.sql)
+    private static final String REL_TABLE = "pokemon_movimiento";
+    private static final String REL_OWNER = "pokedex_number";
+    private static final String REL_TARGET = "movimiento_id";
+
+    private final Generaciones generaciones;   // Rango de números de cada región, para findByGeneracion
+
+    public PokemonRepositoryMySQL() {
+        this(Generaciones.shared());
+    }
+
+    /**
+     * Constructor con el catálogo de generaciones que usa findByGeneracion.
+     */
+    public PokemonRepositoryMySQL(Generaciones generaciones) {
+        this.generaciones = generaciones;
+    }
+
+    /**
+     * Convierte la fila actual del ResultSet en un Pokemon (sin movimientos).
+     */
+    private static Pokemon mapRow(ResultSet rs) throws SQLException {
+        return new Pokemon(
+                rs.getString("pokedex_number"),
+                rs.getString("nombre"),
+                TipoPokemon.valueOf(rs.getString("tipo"))
+        );
+    }
+
+    /**
+     * Rellena los movimientos de los Pokémon leídos con una consulta por cada lote de Pokémon.
+     */
+    private static void attachMovimientos(Connection con, List<Pokemon> list) throws SQLException {
+        attachMovimientos(con, list, false);
+    }
+
+    /**
+     * Como attachMovimientos; con forUpdate las filas de la relación se leen con FOR UPDATE.
+     */
+    private static void attachMovimientos(Connection con, List<Pokemon> list, boolean forUpdate) throws SQLException {
+        if (list.isEmpty()) return;
+        Map<String, Pokemon> byId = new HashMap<>();
+        for (Pokemon p : list) byId.put(p.getPokedexNumber(), p);
+
+        JdbcSupport.loadRelation(con, REL_TABLE, REL_OWNER, REL_TARGET, byId.keySet(), forUpdate)
+                .forEach((id, movs) -> byId.get(id).getMovimientoIds().addAll(movs));
+    }
+
+    /**
+     * Guarda la relación con movimientos de cada Pokémon escribiendo solo la diferencia.
+     */
+    private static void writeMovimientos(Connection con, List<? extends Pokemon> list) throws SQLException {
+        Map<String, List<String>> desired = new LinkedHashMap<>();
+        for (Pokemon p : list) desired.put(p.getPokedexNumber(), p.getMovimientoIds());
+        JdbcSupport.writeRelation(con, REL_TABLE, REL_OWNER, REL_TARGET, desired);
+    }
+
+    /**
+     * Operaciones asíncronas en hilos virtuales, como mucho tantas a la vez como conexiones tiene el pool.
+     */
+    @Override
+    public Executor asyncExecutor() {
+        return AsyncSupport.database();
+    }
 
     @Override
     public long count() {
@@ -62,8 +137,40 @@ public class PokemonRepositoryMySQL implements IRepositorioExtend<Pokemon, Strin
     }
 
 
+    // ---------------- Métodos usados al borrar otras entidades ----------------
+
+    /**
+     * Quita un movimiento de todos los Pokémon que lo tienen.
+     * Es un único DELETE sobre la tabla intermedia (índice idx_pm_movimiento), atómico por sí mismo.
+     * Devuelve cuántos Pokémon fueron modificados.
+     */
+    public int removeMovimientoReferences(String movimientoId) {
+
+        String sql = "DELETE FROM " + REL_TABLE + " WHERE " + REL_TARGET + " = ?";
+
+        try (Connection con = DataBaseConnection.getConnection();
+             PreparedStatement ps = con.prepareStatement(sql)) {
+
+            ps.setString(1, movimientoId);
+            return ps.executeUpdate();
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error quitando referencias a movimiento", e);
+        }
+    }
+
+    @Override
+    public int removeReferences(String movimientoId) {
+        return removeMovimientoReferences(movimientoId);
+    }
+
+    /**
+     * Nº de Pokémon por tipo con un GROUP BY (resuelto con el índice idx_pokemon_tipo).
+     */
+    @Override
     public Map<TipoPokemon, Long> countByTipo() {
-        return Map.of();
+        return JdbcSupport.countBy("SELECT tipo, COUNT(*) FROM pokemon GROUP BY tipo",
+                TipoPokemon.class, "Error contando pokemons por tipo");
     }
 
     @Override
@@ -95,11 +202,9 @@ public class PokemonRepositoryMySQL implements IRepositorioExtend<Pokemon, Strin
             ResultSet rs = ps.executeQuery();
 
             if (rs.next()) {
-                return new Pokemon(
-                        rs.getString("pokedex_number"),
-                        rs.getString("nombre"),
-                        TipoPokemon.valueOf(rs.getString("tipo"))
-                );
+                Pokemon p = mapRow(rs);
+                attachMovimientos(con, List.of(p));
+                return p;
             }
 
             return null;
@@ -109,6 +214,32 @@ public class PokemonRepositoryMySQL implements IRepositorioExtend<Pokemon, Strin
         }
     }
 
+    /**
+     * findById con SELECT ... FOR UPDATE (también las filas de sus movimientos): dentro de una UnitOfWork
+     * el Pokémon y sus movimientos quedan bloqueados hasta el commit y se leen tal como están confirmados.
+     */
+    @Override
+    public Pokemon findByIdForUpdate(String id) {
+        List<Pokemon> found = JdbcSupport.list("SELECT * FROM pokemon WHERE pokedex_number = ? FOR UPDATE",
+                ps -> ps.setString(1, id), PokemonRepositoryMySQL::mapRow, (con, list) -> attachMovimientos(con, list, true), "Error bloqueando pokemon");
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * Pokémon de la región con un BETWEEN sobre la clave primaria (los números tienen siempre 3 dígitos,
+     * así que el orden de texto es el numérico).
+     */
+    @Override
+    public List<Pokemon> findByGeneracion(Region region) {
+        Generaciones.Rango rango = generaciones.rangoOf(region);
+        if (rango == null) return new ArrayList<>();
+        return JdbcSupport.list("SELECT * FROM pokemon WHERE pokedex_number BETWEEN ? AND ? ORDER BY pokedex_number",
+                ps -> {
+                    ps.setString(1, rango.desdeId());
+                    ps.setString(2, rango.hastaId());
+                }, PokemonRepositoryMySQL::mapRow, PokemonRepositoryMySQL::attachMovimientos, "Error buscando pokemons por región");
+    }
+
     @Override
     public Optional<Pokemon> findByIdOptional(String id) {
         return Optional.ofNullable(findById(id));
@@ -131,12 +262,9 @@ public class PokemonRepositoryMySQL implements IRepositorioExtend<Pokemon, Strin
              ResultSet rs = st.executeQuery(sql)) {
 
             while (rs.next()) {
-                list.add(new Pokemon(
-                        rs.getString("pokedex_number"),
-                        rs.getString("nombre"),
-                        TipoPokemon.valueOf(rs.getString("tipo"))
-                ));
+                list.add(mapRow(rs));
             }
+            attachMovimientos(con, list);
 
         } catch (SQLException e) {
             throw new RuntimeException("Error listando pokemons", e);
@@ -145,24 +273,27 @@ public class PokemonRepositoryMySQL implements IRepositorioExtend<Pokemon, Strin
         return list;
     }
 
+    /**
+     * Inserta/actualiza el Pokémon y su relación con movimientos en una transacción.
+     */
     @Override
     public <S extends Pokemon> S save(S entity) {
 
-        String sql = """
-            INSERT INTO pokemon (pokedex_number, nombre, tipo)
-            VALUES (?, ?, ?)
-            ON DUPLICATE KEY UPDATE
-                nombre = VALUES(nombre),
-                tipo = VALUES(tipo)
-            """;
+        try (Connection con = DataBaseConnection.getConnection()) {
+            con.setAutoCommit(false);
+            try (PreparedStatement ps = con.prepareStatement(UPSERT_SQL)) {
 
-        try (Connection con = DataBaseConnection.getConnection();
-             PreparedStatement ps = con.prepareStatement(sql)) {
+                ps.setString(1, entity.getPokedexNumber());
+                ps.setString(2, entity.getNombre());
+                ps.setString(3, entity.getTipo().name());
+                ps.executeUpdate();
 
-            ps.setString(1, entity.getPokedexNumber());
-            ps.setString(2, entity.getNombre());
-            ps.setString(3, entity.getTipo().name());
-            ps.executeUpdate();
+                writeMovimientos(con, List.of(entity));
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
 
             return entity;
 
@@ -171,6 +302,129 @@ public class PokemonRepositoryMySQL implements IRepositorioExtend<Pokemon, Strin
         }
     }
 
+    // ---------------- Listados paginados ----------------
+
+    /**
+     * Página ordenada por ID con ORDER BY ... LIMIT ? OFFSET ?.
+     */
+    @Override
+    public List<Pokemon> findPage(int offset, int limit, Orden orden) {
+        return JdbcSupport.page("pokemon", "pokedex_number", offset, limit, orden, PokemonRepositoryMySQL::mapRow, PokemonRepositoryMySQL::attachMovimientos);
+    }
+
+    /**
+     * Recorrido por clave: lotes de "WHERE pokedex_number > ? ORDER BY pokedex_number LIMIT batchSize".
+     */
+    @Override
+    public Stream<Pokemon> streamAll(String afterId, int batchSize) {
+        return JdbcSupport.keyset("pokemon", "pokedex_number", afterId, batchSize, PokemonRepositoryMySQL::mapRow, PokemonRepositoryMySQL::attachMovimientos, Pokemon::getPokedexNumber);
+    }
+
+    // ---------------- Operaciones por lotes ----------------
+
+    /**
+     * Busca varios Pokémon con una consulta IN (...) por cada BATCH_SIZE IDs.
+     */
+    @Override
+    public List<Pokemon> findAllById(Iterable<String> ids) {
+        return findAllById(ids, false);
+    }
+
+    /**
+     * findAllById con FOR UPDATE: los Pokémon y sus movimientos quedan bloqueados hasta el commit.
+     */
+    @Override
+    public List<Pokemon> findAllByIdForUpdate(Iterable<String> ids) {
+        return findAllById(ids, true);
+    }
+
+    private List<Pokemon> findAllById(Iterable<String> ids, boolean forUpdate) {
+
+        List<Pokemon> list = new ArrayList<>();
+
+        try (Connection con = DataBaseConnection.getConnection()) {
+            for (List<String> chunk : JdbcSupport.chunks(JdbcSupport.distinct(ids))) {
+                String sql = "SELECT * FROM pokemon WHERE pokedex_number IN (" + JdbcSupport.placeholders(chunk.size()) + ")"
+                        + (forUpdate ? " FOR UPDATE" : "");
+                try (PreparedStatement ps = con.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) ps.setString(i + 1, chunk.get(i));
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) list.add(mapRow(rs));
+                    }
+                }
+            }
+            attachMovimientos(con, list, forUpdate);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error buscando pokemons", e);
+        }
+
+        return list;
+    }
+
+    /**
+     * Inserta/actualiza varios Pokémon (y sus movimientos) en una transacción con addBatch/executeBatch.
+     * Con rewriteBatchedStatements=true en la URL el driver lo envía como INSERT multi-fila.
+     */
+    @Override
+    public <S extends Pokemon> List<S> saveAll(Iterable<S> entities) {
+
+        List<S> list = new ArrayList<>();
+        entities.forEach(list::add);
+        if (list.isEmpty()) return list;
+
+        try (Connection con = DataBaseConnection.getConnection()) {
+            con.setAutoCommit(false);
+            try (PreparedStatement ps = con.prepareStatement(UPSERT_SQL)) {
+                for (List<S> chunk : JdbcSupport.chunks(list)) {
+                    for (S entity : chunk) {
+                        ps.setString(1, entity.getPokedexNumber());
+                        ps.setString(2, entity.getNombre());
+                        ps.setString(3, entity.getTipo().name());
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                writeMovimientos(con, list);
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
+            return list;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error guardando pokemons", e);
+        }
+    }
+
+    /**
+     * Borra varios Pokémon en una transacción con addBatch/executeBatch.
+     */
+    @Override
+    public void deleteAllById(Iterable<String> ids) {
+
+        String sql = "DELETE FROM pokemon WHERE pokedex_number = ?";
+
+        try (Connection con = DataBaseConnection.getConnection()) {
+            con.setAutoCommit(false);
+            try (PreparedStatement ps = con.prepareStatement(sql)) {
+                for (List<String> chunk : JdbcSupport.chunks(JdbcSupport.distinct(ids))) {
+                    for (String id : chunk) {
+                        ps.setString(1, id);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error borrando pokemons", e);
+        }
+    }
 
     public List<Pokemon> findByTipo(TipoPokemon tipo) {
 
@@ -185,12 +439,9 @@ public class PokemonRepositoryMySQL implements IRepositorioExtend<Pokemon, Strin
             ResultSet rs = ps.executeQuery();
 
             while (rs.next()) {
-                resultado.add(new Pokemon(
-                        rs.getString("pokedex_number"),
-                        rs.getString("nombre"),
-                        TipoPokemon.valueOf(rs.getString("tipo"))
-                ));
+                resultado.add(mapRow(rs));
             }
+            attachMovimientos(con, resultado);
 
         } catch (SQLException e) {
             throw new RuntimeException("Error buscando pokemons por tipo", e);
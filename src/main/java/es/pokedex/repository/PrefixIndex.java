@@ -0,0 +1,51 @@
+package es.pokedex.repository;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Índice de prefijos por nombre para búsquedas "empieza por" (autocompletado).
+ * Guarda nombreNormalizado + '\0' + id en un ConcurrentSkipListMap, así que una búsqueda
+ * es un recorrido de rango O(prefijo + k) en orden alfabético.
+ * La normalización ignora mayúsculas y acentos ("Ñandú" y "nandu" son lo mismo).
+ * Se modifica con el lock del repositorio tomado; se puede leer sin él.
+ */
+final class PrefixIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final char SEPARATOR = '\u0000';
+
+    private final ConcurrentNavigableMap<String, String> entries = new ConcurrentSkipListMap<>();
+
+    /**
+     * Pasa a minúsculas y quita acentos/diacríticos.
+     */
+    static String normalize(String s) {
+        String decomposed = Normalizer.normalize(s, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    void add(String nombre, String id) {
+        entries.put(normalize(nombre) + SEPARATOR + id, id);
+    }
+
+    void remove(String nombre, String id) {
+        entries.remove(normalize(nombre) + SEPARATOR + id);
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    /**
+     * IDs cuyo nombre empieza por el prefijo, ordenados por nombre. Se recorre de forma perezosa.
+     */
+    Stream<String> idsWithPrefix(String prefix) {
+        String p = normalize(prefix);
+        return entries.subMap(p, true, p + Character.MAX_VALUE, false).values().stream();
+    }
+}
@@ -0,0 +1,40 @@
+package es.pokedex.repository;
+
+import es.pokedex.domain.Entrenador;
+
+import java.util.Comparator;
+
+/**
+ * Criterios de ordenación para el top de entrenadores (IRepositorioRanking.topBy).
+ * A igualdad se desempata siempre por DNI, así el resultado es el mismo en JSON y en MySQL.
+ */
+public enum RankingEntrenador {
+
+    /**
+     * Más Pokémon en el equipo primero.
+     */
+    EQUIPO(Comparator.comparingInt((Entrenador e) -> e.getPokedexNumbers().size()).reversed()),
+
+    /**
+     * Por región, en el orden de las generaciones (KANTO, JOHTO, ...).
+     */
+    REGION(Comparator.comparing(Entrenador::getRegion)),
+
+    /**
+     * Por nombre, sin distinguir mayúsculas ni acentos.
+     */
+    NOMBRE(Comparator.comparing((Entrenador e) -> PrefixIndex.normalize(e.getNombre())));
+
+    private final Comparator<Entrenador> order;
+
+    RankingEntrenador(Comparator<Entrenador> key) {
+        this.order = key.thenComparing(Entrenador::getId);
+    }
+
+    /**
+     * El mismo orden como Comparator (con el desempate por DNI incluido).
+     */
+    public Comparator<Entrenador> order() {
+        return order;
+    }
+}
@@ -0,0 +1,85 @@
+package es.pokedex.repository;
+
+import java.util.*;
+
+/**
+ * Índice secundario en memoria: clave → IDs de las entidades con esa clave.
+ * Lo usan los repositorios JSON para que las búsquedas por tipo, región o movimiento
+ * cuesten O(resultado) en lugar de recorrer todo el fichero.
+ * No es thread-safe: se usa siempre con el lock del repositorio tomado.
+ */
+final class SecondaryIndex<K> {
+
+    private final Map<K, Set<String>> buckets;
+
+    private SecondaryIndex(Map<K, Set<String>> buckets) {
+        this.buckets = buckets;
+    }
+
+    /**
+     * Índice por un enum (EnumMap).
+     */
+    static <K extends Enum<K>> SecondaryIndex<K> forEnum(Class<K> keyType) {
+        return new SecondaryIndex<>(new EnumMap<>(keyType));
+    }
+
+    /**
+     * Índice por cualquier otra clave (HashMap).
+     */
+    static <K> SecondaryIndex<K> hashed() {
+        return new SecondaryIndex<>(new HashMap<>());
+    }
+
+    /**
+     * Índice ordenado por la clave (TreeMap), para recorrerlo en ese orden con firstIds.
+     */
+    static <K> SecondaryIndex<K> sorted(Comparator<? super K> order) {
+        return new SecondaryIndex<>(new TreeMap<>(order));
+    }
+
+    void add(K key, String id) {
+        buckets.computeIfAbsent(key, k -> new TreeSet<>()).add(id);
+    }
+
+    void remove(K key, String id) {
+        Set<String> ids = buckets.get(key);
+        if (ids == null) return;
+        ids.remove(id);
+        if (ids.isEmpty()) buckets.remove(key);
+    }
+
+    /**
+     * IDs con esa clave, ordenados (vista de solo lectura; vacía si no hay ninguno).
+     */
+    Set<String> get(K key) {
+        Set<String> ids = buckets.get(key);
+        return ids == null ? Set.of() : Collections.unmodifiableSet(ids);
+    }
+
+    /**
+     * Nº de IDs por clave (solo claves con al menos uno).
+     */
+    Map<K, Long> counts(Map<K, Long> target) {
+        buckets.forEach((k, ids) -> target.put(k, (long) ids.size()));
+        return target;
+    }
+
+    /**
+     * Los primeros limit IDs recorriendo las claves en orden (y cada clave por ID).
+     * Cuesta O(limit): solo se guardan claves con algún ID, así que no hay cubos vacíos que saltar.
+     */
+    List<String> firstIds(int limit) {
+        List<String> result = new ArrayList<>(Math.min(limit, 64));
+        for (Set<String> ids : buckets.values()) {
+            for (String id : ids) {
+                if (result.size() >= limit) return result;
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    void clear() {
+        buckets.clear();
+    }
+}
@@ -0,0 +1,107 @@
+package es.pokedex.repository;
+
+import es.pokedex.domain.Entrenador;
+import es.pokedex.domain.Movimiento;
+import es.pokedex.domain.Pokemon;
+import es.pokedex.domain.Region;
+import es.pokedex.domain.TipoPokemon;
+import es.pokedex.util.BinarySnapshot;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Codificación de cada entidad en el snapshot binario (BinarySnapshot).
+ * Los campos de tamaño fijo van primero: ID en ASCII, ordinal del enum en un byte y potencia en 2 bytes.
+ */
+public final class SnapshotCodecs {
+
+    private static final TipoPokemon[] TIPOS = TipoPokemon.values();
+    private static final Region[] REGIONES = Region.values();
+
+    private SnapshotCodecs() {}
+
+    /**
+     * pokedexNumber (3) | tipo (1) | nombre | movimientoIds
+     */
+    public static final BinarySnapshot.Codec<Pokemon> POKEMON = new BinarySnapshot.Codec<>() {
+        @Override
+        public int keyWidth() { return 3; }
+
+        @Override
+        public String idOf(Pokemon p) { return p.getPokedexNumber(); }
+
+        @Override
+        public void write(Pokemon p, DataOutput out) throws IOException {
+            BinarySnapshot.writeKey(out, p.getPokedexNumber(), 3);
+            out.writeByte(p.getTipo().ordinal());
+            BinarySnapshot.writeText(out, p.getNombre());
+            BinarySnapshot.writeIds(out, p.getMovimientoIds());
+        }
+
+        @Override
+        public Pokemon read(ByteBuffer in) {
+            String id = BinarySnapshot.readKey(in, 3);
+            TipoPokemon tipo = TIPOS[in.get()];
+            String nombre = BinarySnapshot.readText(in);
+            return new Pokemon(id, nombre, tipo, BinarySnapshot.readIds(in));
+        }
+    };
+
+    /**
+     * id (6) | tipo (1) | potencia (2, sin signo) | nombre
+     */
+    public static final BinarySnapshot.Codec<Movimiento> MOVIMIENTO = new BinarySnapshot.Codec<>() {
+        @Override
+        public int keyWidth() { return 6; }
+
+        @Override
+        public String idOf(Movimiento m) { return m.getId(); }
+
+        @Override
+        public void write(Movimiento m, DataOutput out) throws IOException {
+            if (m.getPotencia() > 0xFFFF)
+                throw new IllegalArgumentException("potencia demasiado alta para el snapshot binario: " + m.getPotencia());
+            BinarySnapshot.writeKey(out, m.getId(), 6);
+            out.writeByte(m.getTipo().ordinal());
+            out.writeShort(m.getPotencia());
+            BinarySnapshot.writeText(out, m.getNombre());
+        }
+
+        @Override
+        public Movimiento read(ByteBuffer in) {
+            String id = BinarySnapshot.readKey(in, 6);
+            TipoPokemon tipo = TIPOS[in.get()];
+            int potencia = Short.toUnsignedInt(in.getShort());
+            return new Movimiento(id, BinarySnapshot.readText(in), tipo, potencia);
+        }
+    };
+
+    /**
+     * id (9) | región (1) | nombre | pokedexNumbers
+     */
+    public static final BinarySnapshot.Codec<Entrenador> ENTRENADOR = new BinarySnapshot.Codec<>() {
+        @Override
+        public int keyWidth() { return 9; }
+
+        @Override
+        public String idOf(Entrenador e) { return e.getId(); }
+
+        @Override
+        public void write(Entrenador e, DataOutput out) throws IOException {
+            BinarySnapshot.writeKey(out, e.getId(), 9);
+            out.writeByte(e.getRegion().ordinal());
+            BinarySnapshot.writeText(out, e.getNombre());
+            BinarySnapshot.writeIds(out, e.getPokedexNumbers());
+        }
+
+        @Override
+        public Entrenador read(ByteBuffer in) {
+            String id = BinarySnapshot.readKey(in, 9);
+            Region region = REGIONES[in.get()];
+            String nombre = BinarySnapshot.readText(in);
+            return new Entrenador(id, nombre, region, BinarySnapshot.readIds(in));
+        }
+    };
+}
@@ -0,0 +1,89 @@
+package es.pokedex.repository;
+
+import es.pokedex.util.DataBaseConnection;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Unidad de trabajo sobre varios repositorios: las lecturas y escrituras de execute() se confirman
+ * juntas al final o no se confirma ninguna.
+ * - MySQL: una sola conexión y un único commit (DataBaseConnection.transaction). Las entidades que se
+ *   van a modificar se leen con findByIdForUpdate (SELECT ... FOR UPDATE) para que dos transacciones
+ *   sobre la misma fila se ejecuten una detrás de otra.
+ * - JSON: se bloquean solo las entidades que la unidad modifica o lee con findByIdForUpdate, hasta el final,
+ *   y cada fichero se escribe una sola vez al final. Los locks se toman en un orden fijo (por ruta del
+ *   fichero y por franja de IDs); si una unidad tiene que esperar uno fuera de orden y tarda demasiado, falla y se
+ *   deshace en lugar de quedarse bloqueada. Los demás procesos no se bloquean: gana el último cambio
+ *   escrito de cada entidad. Mientras la unidad está en curso sus cambios solo los ve su propio hilo; los
+ *   demás lectores ven los valores confirmados. La escritura de varios ficheros no es atómica entre ellos:
+ *   si falla uno, los anteriores ya están escritos.
+ * Las operaciones asíncronas se ejecutan en otros hilos y quedan fuera de la unidad.
+ */
+public final class UnitOfWork {
+
+    private final List<AbstractJsonRepository<?>> jsonRepos;
+    private final boolean jdbc;
+
+    private UnitOfWork(List<AbstractJsonRepository<?>> jsonRepos, boolean jdbc) {
+        this.jsonRepos = jsonRepos;
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Unidad de trabajo sobre esos repositorios. Los que no son transaccionales se usan tal cual.
+     */
+    public static UnitOfWork of(IRepositorioExtend<?, ?>... repos) {
+        List<AbstractJsonRepository<?>> json = new ArrayList<>();
+        boolean jdbc = false;
+        for (IRepositorioExtend<?, ?> repo : repos) {
+            if (repo instanceof AbstractJsonRepository<?> r) {
+                if (!json.contains(r)) json.add(r);
+            } else if (repo instanceof IRepositorioTransaccional<?, ?>) {
+                jdbc = true;
+            }
+        }
+        json.sort(Comparator.comparing(r -> r.path.toAbsolutePath().normalize()));
+        return new UnitOfWork(json, jdbc);
+    }
+
+    /**
+     * Ejecuta work dentro de la unidad y devuelve su resultado. Si work lanza una excepción
+     * no se guarda nada y la excepción se propaga.
+     */
+    public <R> R execute(Supplier<R> work) {
+        return AbstractJsonRepository.inTransaction(jsonRepos,
+                () -> jdbc ? DataBaseConnection.transaction(work) : work.get());
+    }
+
+    public void run(Runnable work) {
+        execute(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * findByIdForUpdate si el repositorio lo admite; si no, findById.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, ID> T findForUpdate(IRepositorioExtend<T, ID> repo, ID id) {
+        if (repo instanceof IRepositorioTransaccional<?, ?> tx) {
+            return ((IRepositorioTransaccional<T, ID>) tx).findByIdForUpdate(id);
+        }
+        return repo.findById(id);
+    }
+
+    /**
+     * findAllByIdForUpdate si el repositorio lo admite; si no, findAllById.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, ID> List<T> findAllForUpdate(IRepositorioExtend<T, ID> repo, Iterable<ID> ids) {
+        if (repo instanceof IRepositorioTransaccional<?, ?> tx) {
+            return ((IRepositorioTransaccional<T, ID>) tx).findAllByIdForUpdate(ids);
+        }
+        return repo.findAllById(ids);
+    }
+}
@@ -0,0 +1,174 @@
+package es.pokedex.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import es.pokedex.domain.IdFormats;
+import es.pokedex.domain.Region;
+import es.pokedex.domain.TipoPokemon;
+import es.pokedex.util.JsonFileStore;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Validación en bloque de los ficheros JSON de un directorio de datos.
+ * Al cargar, el primer registro incorrecto hace fallar todo el fichero; aquí en cambio se recorren
+ * todos los registros sin construir las entidades y se devuelven todas las infracciones juntas:
+ * formatos de ID (con la letra de control del DNI, que los constructores no exigen), campos obligatorios,
+ * IDs repetidos, referencias a Pokémon o movimientos que no existen y equipos de más de 6.
+ * Los ficheros se leen en streaming: la memoria depende del nº de IDs, no del tamaño de los ficheros.
+ */
+public class DataValidator {
+
+    private static final TypeReference<List<JsonNode>> NODES = new TypeReference<>() {};
+
+    /**
+     * Una infracción: fichero, posición del registro en el array (desde 0), su ID tal cual y qué falla.
+     */
+    public record Violation(String fichero, int posicion, String id, String mensaje) {
+        @Override
+        public String toString() {
+            return fichero + "[" + posicion + "] " + (id == null ? "(sin id)" : id) + ": " + mensaje;
+        }
+    }
+
+    /**
+     * Resultado: registros revisados por fichero y todas las infracciones encontradas.
+     */
+    public record Report(Map<String, Integer> registros, List<Violation> violaciones) {
+        public boolean isValid() { return violaciones.isEmpty(); }
+    }
+
+    private final JsonFileStore store = new JsonFileStore();
+
+    /**
+     * Valida movimientos.json, pokemons.json y entrenadores.json (los que existan) del directorio.
+     * Primero movimientos y Pokémon, para poder comprobar después las referencias a ellos.
+     */
+    public Report validate(Path dataDir) {
+        Map<String, Integer> registros = new LinkedHashMap<>();
+        List<Violation> violaciones = new ArrayList<>();
+
+        Set<String> movimientos = new HashSet<>();
+        registros.put("movimientos.json", scan(dataDir.resolve("movimientos.json"), violaciones, (node, v) -> {
+            String id = v.id(node, "id");
+            if (!IdFormats.isMovimientoId(id)) v.add("id de movimiento debe ser 2 MAYUSC + 4 DIGIT, ej: TH1023");
+            else if (!movimientos.add(id)) v.add("id repetido");
+            v.requireText(node, "nombre");
+            v.requireEnum(node, "tipo", TipoPokemon.class);
+            JsonNode potencia = node.get("potencia");
+            if (potencia == null || !potencia.isInt() || potencia.intValue() < 0) v.add("potencia debe ser un entero >= 0");
+        }));
+
+        Set<String> pokemons = new HashSet<>();
+        registros.put("pokemons.json", scan(dataDir.resolve("pokemons.json"), violaciones, (node, v) -> {
+            String id = v.id(node, "pokedexNumber");
+            if (!IdFormats.isPokedexNumber(id)) v.add("pokedexNumber debe tener 3 dig, ej: 025");
+            else if (!pokemons.add(id)) v.add("pokedexNumber repetido");
+            v.requireText(node, "nombre");
+            v.requireEnum(node, "tipo", TipoPokemon.class);
+            for (String mov : v.ids(node, "movimientoIds")) {
+                if (!IdFormats.isMovimientoId(mov)) v.add("movimiento con formato incorrecto: " + mov);
+                else if (!movimientos.contains(mov)) v.add("movimiento inexistente: " + mov);
+            }
+        }));
+
+        Set<String> entrenadores = new HashSet<>();
+        registros.put("entrenadores.json", scan(dataDir.resolve("entrenadores.json"), violaciones, (node, v) -> {
+            String id = v.id(node, "id");
+            if (!IdFormats.isDniFormat(id)) v.add("DNI tiene que tener 8 digitos + una mayúscula, eje: 65788344F");
+            else {
+                if (!IdFormats.isDni(id)) v.add("letra de control del DNI incorrecta, debería ser " + IdFormats.dniLetter(id));
+                if (!entrenadores.add(id)) v.add("DNI repetido");
+            }
+            v.requireText(node, "nombre");
+            v.requireEnum(node, "region", Region.class);
+            List<String> team = v.ids(node, "pokedexNumbers");
+            if (team.size() > 6) v.add("más de 6 Pokémon en el equipo (" + team.size() + ")");
+            for (String n : team) {
+                if (!IdFormats.isPokedexNumber(n)) v.add("Pokémon con formato incorrecto: " + n);
+                else if (!pokemons.contains(n)) v.add("Pokémon inexistente: " + n);
+            }
+        }));
+
+        return new Report(registros, violaciones);
+    }
+
+    /**
+     * Recorre los registros de un fichero (si existe) pasando cada uno a check. Devuelve cuántos había.
+     */
+    private int scan(Path file, List<Violation> violaciones, BiConsumer<JsonNode, Checker> check) {
+        if (!Files.exists(file)) return 0;
+        String name = file.getFileName().toString();
+        int[] count = {0};
+        try (Stream<JsonNode> nodes = store.readStream(file, NODES)) {
+            nodes.forEach(node -> {
+                Checker checker = new Checker(name, count[0]++, violaciones);
+                if (!node.isObject()) checker.add("el registro no es un objeto JSON");
+                else check.accept(node, checker);
+            });
+        }
+        return count[0];
+    }
+
+    /**
+     * Comprobaciones de un registro concreto; cada fallo se apunta con su posición e ID.
+     */
+    private static final class Checker {
+        private final String fichero;
+        private final int posicion;
+        private final List<Violation> violaciones;
+        private String id;
+
+        Checker(String fichero, int posicion, List<Violation> violaciones) {
+            this.fichero = fichero;
+            this.posicion = posicion;
+            this.violaciones = violaciones;
+        }
+
+        void add(String mensaje) {
+            violaciones.add(new Violation(fichero, posicion, id, mensaje));
+        }
+
+        // Lee el ID del registro (null si falta o no es texto) y lo usa en las infracciones siguientes
+        String id(JsonNode node, String field) {
+            JsonNode value = node.get(field);
+            id = value != null && value.isTextual() ? value.textValue() : null;
+            return id;
+        }
+
+        void requireText(JsonNode node, String field) {
+            JsonNode value = node.get(field);
+            if (value == null || !value.isTextual() || value.textValue().isBlank()) add(field + " requerido");
+        }
+
+        <E extends Enum<E>> void requireEnum(JsonNode node, String field, Class<E> type) {
+            JsonNode value = node.get(field);
+            if (value == null || !value.isTextual()) {
+                add(field + " requerido");
+                return;
+            }
+            try {
+                Enum.valueOf(type, value.textValue());
+            } catch (IllegalArgumentException e) {
+                add(field + " no válido: " + value.textValue());
+            }
+        }
+
+        // Lista de IDs referenciados; un campo ausente o null cuenta como lista vacía
+        List<String> ids(JsonNode node, String field) {
+            JsonNode value = node.get(field);
+            if (value == null || value.isNull()) return List.of();
+            if (!value.isArray()) {
+                add(field + " debe ser una lista");
+                return List.of();
+            }
+            List<String> ids = new ArrayList<>(value.size());
+            for (JsonNode n : value) ids.add(n.isTextual() ? n.textValue() : n.toString());
+            return ids;
+        }
+    }
+}
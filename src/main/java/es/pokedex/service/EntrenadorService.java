@@ -1,83 +1,217 @@
 package es.pokedex.service;
 
 import es.pokedex.domain.Entrenador;
+import es.pokedex.domain.Generaciones;
 import es.pokedex.domain.Pokemon;
 import es.pokedex.domain.Region;
 import es.pokedex.exception.EntityNotFoundException;
+import es.pokedex.repository.IRepositorioAsync;
 import es.pokedex.repository.IRepositorioExtend;
+import es.pokedex.repository.UnitOfWork;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class EntrenadorService {
 
+    /**
+     * Un entrenador con los Pokémon de su equipo, en el orden del equipo.
+     * Los números que ya no existen en el repositorio de Pokémon se omiten.
+     */
+    public record Equipo(Entrenador entrenador, List<Pokemon> pokemons) {}
+
+    /**
+     * Qué pasó con cada par entrenador/Pokémon de assignPokemons.
+     */
+    public enum ResultadoAsignacion {
+        ASIGNADO,
+        YA_EN_EQUIPO,          // No es un error: el equipo ya lo tenía y no cambia
+        POKEMON_NO_EXISTE,
+        ENTRENADOR_NO_EXISTE,
+        EQUIPO_COMPLETO,
+        FUERA_DE_REGION
+    }
+
+    public record Asignacion(String entrenadorId, String pokedexNumber, ResultadoAsignacion resultado) {
+        public boolean isOk() { return resultado == ResultadoAsignacion.ASIGNADO || resultado == ResultadoAsignacion.YA_EN_EQUIPO; }
+    }
+
     private final IRepositorioExtend<Entrenador, String> entrenadorRepo;
     private final IRepositorioExtend<Pokemon, String> pokemonRepo;
+    private final Generaciones generaciones;
 
     public EntrenadorService(
             IRepositorioExtend<Entrenador, String> entrenadorRepo,
             IRepositorioExtend<Pokemon, String> pokemonRepo
+    ) {
+        this(entrenadorRepo, pokemonRepo, Generaciones.shared());
+    }
+
+    public EntrenadorService(
+            IRepositorioExtend<Entrenador, String> entrenadorRepo,
+            IRepositorioExtend<Pokemon, String> pokemonRepo,
+            Generaciones generaciones
     ) {
         this.entrenadorRepo = entrenadorRepo;
         this.pokemonRepo = pokemonRepo;
+        this.generaciones = generaciones;
     }
 
     // logica de negocio 2, Máximo 6 Pokémon y logica de negocio 3, el Pokémon debe pertenecer a la generación de su región
+    // En una UnitOfWork: dos asignaciones a la vez al mismo entrenador no pueden pasar ambas del límite de 6
     public void assignPokemonToEntrenador(String entrenadorId, String pokedexNumber) {
+        UnitOfWork.of(entrenadorRepo, pokemonRepo).run(() -> {
+
+            // Dentro de la transacción las búsquedas van en este hilo (con su conexión y sus locks).
+            // El Pokémon también se bloquea: un deletePokemon a la vez no puede dejar una referencia huérfana.
+            // Se bloquea antes que el entrenador, en el mismo orden que deletePokemon, para no interbloquearse
+            Pokemon pokemon = UnitOfWork.findForUpdate(pokemonRepo, pokedexNumber);
+            if (pokemon == null) {
+                throw new EntityNotFoundException("Pokemon " + pokedexNumber + " no existe");
+            }
+
+            Entrenador e = UnitOfWork.findForUpdate(entrenadorRepo, entrenadorId);
+            if (e == null) {
+                throw new EntityNotFoundException("Entrenador " + entrenadorId + " no existe");
+            }
+
+            // logica de negocio 2
+            if (e.getPokedexNumbers().size() >= 6) {
+                throw new IllegalStateException("Un entrenador no puede tener más de 6 Pokémon");
+            }
+
+            // Validación por generación (rango de Pokédex)
+            if (!perteneceAGeneracion(e.getRegion(), pokedexNumber)) {
+                throw new IllegalStateException(
+                        "El Pokémon no pertenece a la región " + e.getRegion()
+                );
+            }
+
+            e.addPokemon(pokedexNumber);
+            entrenadorRepo.save(e);
+        });
+    }
+    /**
+     * Asignación en bloque: para cada entrenador, sus Pokémon en el orden dado.
+     * Aplica las mismas reglas que assignPokemonToEntrenador, pero un par que no las cumple no detiene
+     * el resto: se apunta su resultado y se sigue. Devuelve un resultado por par, en el orden de entrada.
+     * Son tres accesos al almacenamiento en una UnitOfWork, sea cual sea el tamaño del lote:
+     * un findAllById de Pokémon, otro de entrenadores y un único saveAll de los que cambian.
+     * Los dos findAllById bloquean: primero los Pokémon (ordenados) y luego los entrenadores, el mismo orden
+     * que deletePokemon, así un borrado a la vez no deja referencias a Pokémon que ya no existen.
+     */
+    public List<Asignacion> assignPokemons(Map<String, List<String>> asignaciones) {
+        return UnitOfWork.of(entrenadorRepo, pokemonRepo).execute(() -> {
+            Set<String> numbers = new TreeSet<>();
+            asignaciones.values().forEach(numbers::addAll);
+            Set<String> existing = numbers.isEmpty() ? Set.of()
+                    : byNumber(UnitOfWork.findAllForUpdate(pokemonRepo, numbers)).keySet();
+
+            Map<String, Entrenador> entrenadores = new HashMap<>();
+            for (Entrenador e : UnitOfWork.findAllForUpdate(entrenadorRepo, asignaciones.keySet())) {
+                entrenadores.put(e.getId(), e);
+            }
+
+            List<Asignacion> result = new ArrayList<>();
+            Map<String, Entrenador> changed = new LinkedHashMap<>();
+            asignaciones.forEach((entrenadorId, pokedexNumbers) -> {
+                Entrenador e = entrenadores.get(entrenadorId);
+                for (String n : pokedexNumbers) {
+                    ResultadoAsignacion r = assign(e, n, existing);
+                    if (r == ResultadoAsignacion.ASIGNADO) changed.put(entrenadorId, e);
+                    result.add(new Asignacion(entrenadorId, n, r));
+                }
+            });
+
+            entrenadorRepo.saveAll(changed.values());
+            return result;
+        });
+    }
 
-        Pokemon pokemon = pokemonRepo.findById(pokedexNumber);
-        if (pokemon == null) {
-            throw new EntityNotFoundException("Pokemon " + pokedexNumber + " no existe");
-        }
+    // Las reglas de assignPokemonToEntrenador sobre el entrenador ya cargado; uno que ya está en el equipo
+    // se informa aparte y no cuenta como equipo completo
+    private ResultadoAsignacion assign(Entrenador e, String pokedexNumber, Set<String> existing) {
+        if (!existing.contains(pokedexNumber)) return ResultadoAsignacion.POKEMON_NO_EXISTE;
+        if (e == null) return ResultadoAsignacion.ENTRENADOR_NO_EXISTE;
+        if (e.getPokedexNumbers().contains(pokedexNumber)) return ResultadoAsignacion.YA_EN_EQUIPO;
+        if (e.getPokedexNumbers().size() >= 6) return ResultadoAsignacion.EQUIPO_COMPLETO;
+        if (!perteneceAGeneracion(e.getRegion(), pokedexNumber)) return ResultadoAsignacion.FUERA_DE_REGION;
 
-        Entrenador e = entrenadorRepo.findById(entrenadorId);
-        if (e == null) {
-            throw new EntityNotFoundException("Entrenador " + entrenadorId + " no existe");
-        }
+        e.addPokemon(pokedexNumber);
+        return ResultadoAsignacion.ASIGNADO;
+    }
 
-        // logica de negocio 2
-        if (e.getPokedexNumbers().size() >= 6) {
-            throw new IllegalStateException("Un entrenador no puede tener más de 6 Pokémon");
-        }
+    //logica de negocio 3: la región del número sale del catálogo de generaciones (una tabla ya calculada)
+    private boolean perteneceAGeneracion(Region region, String pokedexNumber) {
+        return generaciones.perteneceA(region, pokedexNumber);
+    }
+
+    public List<Pokemon> getPokemonsOfEntrenador(String entrenadorId) {
+        return IRepositorioAsync.join(getPokemonsOfEntrenadorAsync(entrenadorId));
+    }
+
+    /**
+     * Pokémon del equipo de un entrenador, en el orden del equipo.
+     * El equipo entero se resuelve con un solo findAllById (una consulta IN (...) en MySQL),
+     * no con un findById por Pokémon.
+     */
+    public CompletableFuture<List<Pokemon>> getPokemonsOfEntrenadorAsync(String entrenadorId) {
+        return IRepositorioAsync.findByIdAsync(entrenadorRepo, entrenadorId).thenCompose(e -> {
+            if (e == null) {
+                throw new EntityNotFoundException("Entrenador " + entrenadorId + " no existe");
+            }
+            return IRepositorioAsync.findAllByIdAsync(pokemonRepo, e.getPokedexNumbers())
+                    .thenApply(found -> inTeamOrder(e, byNumber(found)));
+        });
+    }
 
-        // Validación por generación (rango de Pokédex)
-        if (!perteneceAGeneracion(e.getRegion(), pokedexNumber)) {
-            throw new IllegalStateException(
-                    "El Pokémon no pertenece a la región " + e.getRegion()
-            );
+    /**
+     * Entrenadores con sus equipos. Los que no existen se omiten; el resto va en el orden pedido.
+     * Son siempre dos accesos al almacenamiento, sea cual sea el número de entrenadores:
+     * un findAllById de entrenadores y otro de todos los Pokémon de sus equipos.
+     */
+    public List<Equipo> getEquipos(Iterable<String> entrenadorIds) {
+        Map<String, Entrenador> found = new HashMap<>();
+        for (Entrenador e : entrenadorRepo.findAllById(entrenadorIds)) found.put(e.getId(), e);
+
+        List<Entrenador> entrenadores = new ArrayList<>();
+        for (String id : entrenadorIds) {
+            Entrenador e = found.remove(id);   // remove: un ID repetido sale una sola vez
+            if (e != null) entrenadores.add(e);
         }
+        return equiposOf(entrenadores);
+    }
 
-        e.addPokemon(pokedexNumber);
-        entrenadorRepo.save(e);
+    /**
+     * Todos los entrenadores con sus equipos (dos accesos al almacenamiento).
+     */
+    public List<Equipo> getAllEquipos() {
+        return equiposOf(entrenadorRepo.findAllToList());
     }
-    //logica de negocio 3
-    private boolean perteneceAGeneracion(Region region, String pokedexNumber) {
 
-        int num = Integer.parseInt(pokedexNumber);
-
-        return switch (region) {
-            case KANTO  -> num >= 1   && num <= 151;
-            case JOHTO  -> num >= 152 && num <= 251;
-            case HOENN  -> num >= 252 && num <= 386;
-            case SINNOH -> num >= 387 && num <= 493;
-            case UNOVA  -> num >= 494 && num <= 649;
-            case KALOS  -> num >= 650 && num <= 721;
-            case ALOLA  -> num >= 722 && num <= 809;
-            case GALAR  -> num >= 810 && num <= 905;
-            case PALDEA -> num >= 906 && num <= 1010;
-        };
+    private List<Equipo> equiposOf(List<Entrenador> entrenadores) {
+        Set<String> numbers = new LinkedHashSet<>();
+        for (Entrenador e : entrenadores) numbers.addAll(e.getPokedexNumbers());
+        Map<String, Pokemon> pokemons = numbers.isEmpty() ? Map.of() : byNumber(pokemonRepo.findAllById(numbers));
+
+        List<Equipo> result = new ArrayList<>(entrenadores.size());
+        for (Entrenador e : entrenadores) result.add(new Equipo(e, inTeamOrder(e, pokemons)));
+        return result;
     }
 
-    public List<Pokemon> getPokemonsOfEntrenador(String entrenadorId) {
+    private static Map<String, Pokemon> byNumber(List<Pokemon> pokemons) {
+        Map<String, Pokemon> map = new HashMap<>();
+        for (Pokemon p : pokemons) map.put(p.getPokedexNumber(), p);
+        return map;
+    }
 
-        Entrenador e = entrenadorRepo.findById(entrenadorId);
-        if (e == null) {
-            throw new EntityNotFoundException("Entrenador " + entrenadorId + " no existe");
+    // findAllById no garantiza el orden (en MySQL sale el de la tabla): se recoloca según el equipo
+    private static List<Pokemon> inTeamOrder(Entrenador e, Map<String, Pokemon> pokemons) {
+        List<Pokemon> team = new ArrayList<>(e.getPokedexNumbers().size());
+        for (String n : e.getPokedexNumbers()) {
+            Pokemon p = pokemons.get(n);
+            if (p != null) team.add(p);
         }
-
-        return e.getPokedexNumbers().stream()
-                .map(pokemonRepo::findById)
-                .filter(p -> p != null)
-                .collect(Collectors.toList());
+        return team;
     }
 }
@@ -1,93 +1,148 @@
 package es.pokedex.service;
 
 import es.pokedex.domain.Entrenador;
+import es.pokedex.domain.Generaciones;
 import es.pokedex.domain.Movimiento;
 import es.pokedex.domain.Pokemon;
+import es.pokedex.domain.Region;
 import es.pokedex.exception.EntityNotFoundException;
 import es.pokedex.repository.IRepositorioExtend;
+import es.pokedex.repository.IRepositorioPorGeneracion;
+import es.pokedex.repository.IRepositorioReferencias;
+import es.pokedex.repository.UnitOfWork;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.Function;
 
 public class PokemonService {
 
     private final IRepositorioExtend<Pokemon, String> pokemonRepo;
     private final IRepositorioExtend<Entrenador, String> entrenadorRepo;
     private final IRepositorioExtend<Movimiento, String> movimientoRepo;
+    private final Generaciones generaciones;
 
     public PokemonService(
             IRepositorioExtend<Pokemon, String> pokemonRepo,
             IRepositorioExtend<Entrenador, String> entrenadorRepo,
             IRepositorioExtend<Movimiento, String> movimientoRepo
+    ) {
+        this(pokemonRepo, entrenadorRepo, movimientoRepo, Generaciones.shared());
+    }
+
+    public PokemonService(
+            IRepositorioExtend<Pokemon, String> pokemonRepo,
+            IRepositorioExtend<Entrenador, String> entrenadorRepo,
+            IRepositorioExtend<Movimiento, String> movimientoRepo,
+            Generaciones generaciones
     ) {
         this.pokemonRepo = pokemonRepo;
         this.entrenadorRepo = entrenadorRepo;
         this.movimientoRepo = movimientoRepo;
+        this.generaciones = generaciones;
     }
 
+    /**
+     * Borra el Pokémon y lo quita de los equipos en una UnitOfWork: o se hacen las dos cosas o ninguna.
+     */
     public int deletePokemon(String pokedexNumber) {
-        if (!pokemonRepo.existsById(pokedexNumber)) {
-            throw new EntityNotFoundException("Pokemon no existe");
-        }
-
-        pokemonRepo.deleteById(pokedexNumber);
-
-        int cleaned = 0;
-        for (Entrenador e : entrenadorRepo.findAllToList()) {
-            if (e.getPokedexNumbers().remove(pokedexNumber)) {
-                entrenadorRepo.save(e);
-                cleaned++;
+        return UnitOfWork.of(entrenadorRepo, pokemonRepo).execute(() -> {
+            if (UnitOfWork.findForUpdate(pokemonRepo, pokedexNumber) == null) {
+                throw new EntityNotFoundException("Pokemon no existe");
             }
-        }
-        return cleaned;
+
+            // Primero las referencias: en MySQL el borrado las quitaría en cascada sin contarlas
+            int cleaned = removeReferences(entrenadorRepo, pokedexNumber, Entrenador::getPokedexNumbers);
+            pokemonRepo.deleteById(pokedexNumber);
+            return cleaned;
+        });
     }
 
     // Logica de negocios 1: el movimiento debe coincidir con el tipo del pokemon
     public boolean addMovimientoToPokemon(String pokedexNumber, String movimientoId) {
+        return UnitOfWork.of(pokemonRepo, movimientoRepo).execute(() -> {
+
+            // Dentro de la transacción las búsquedas van en este hilo (con su conexión y sus locks)
+            Pokemon p = UnitOfWork.findForUpdate(pokemonRepo, pokedexNumber);
+            if (p == null) throw new EntityNotFoundException("Pokemon no existe");
+
+            // Bloqueado también: un deleteMovimiento a la vez no puede dejar una referencia huérfana
+            Movimiento m = UnitOfWork.findForUpdate(movimientoRepo, movimientoId);
+            if (m == null) throw new EntityNotFoundException("Movimiento no existe");
+
+            // Validación de tipo
+            if (!p.getTipo().equals(m.getTipo())) {
+                throw new IllegalStateException(
+                        "Un Pokemon tipo " + p.getTipo() +
+                                " no puede usar un movimiento tipo " + m.getTipo()
+                );
+            }
 
-        Pokemon p = pokemonRepo.findById(pokedexNumber);
-        if (p == null) throw new EntityNotFoundException("Pokemon no existe");
-
-        Movimiento m = movimientoRepo.findById(movimientoId);
-        if (m == null) throw new EntityNotFoundException("Movimiento no existe");
-
-        // Validación de tipo
-        if (!p.getTipo().equals(m.getTipo())) {
-            throw new IllegalStateException(
-                    "Un Pokemon tipo " + p.getTipo() +
-                            " no puede usar un movimiento tipo " + m.getTipo()
-            );
-        }
-
-        if (p.getMovimientoIds().contains(movimientoId)) return false;
+            if (p.getMovimientoIds().contains(movimientoId)) return false;
 
-        p.addMovimiento(movimientoId);
-        pokemonRepo.save(p);
-        return true;
+            p.addMovimiento(movimientoId);
+            pokemonRepo.save(p);
+            return true;
+        });
     }
 
     public boolean removeMovimientoFromPokemon(String pokedexNumber, String movimientoId) {
-        Pokemon p = pokemonRepo.findById(pokedexNumber);
-        if (p == null) throw new EntityNotFoundException("Pokemon no existe");
-
-        boolean removed = p.getMovimientoIds().remove(movimientoId);
-        pokemonRepo.save(p);
-        return removed;
+        return UnitOfWork.of(pokemonRepo).execute(() -> {
+            Pokemon p = UnitOfWork.findForUpdate(pokemonRepo, pokedexNumber);
+            if (p == null) throw new EntityNotFoundException("Pokemon no existe");
+
+            boolean removed = p.getMovimientoIds().remove(movimientoId);
+            if (removed) pokemonRepo.save(p);
+            return removed;
+        });
     }
 
     public int deleteMovimiento(String movimientoId) {
-        if (!movimientoRepo.existsById(movimientoId)) {
-            throw new EntityNotFoundException("Movimiento no existe");
+        return UnitOfWork.of(pokemonRepo, movimientoRepo).execute(() -> {
+            if (UnitOfWork.findForUpdate(movimientoRepo, movimientoId) == null) {
+                throw new EntityNotFoundException("Movimiento no existe");
+            }
+
+            int cleaned = removeReferences(pokemonRepo, movimientoId, Pokemon::getMovimientoIds);
+            movimientoRepo.deleteById(movimientoId);
+            return cleaned;
+        });
+    }
+
+    /**
+     * Pokémon de la región, por número de Pokédex. Con IRepositorioPorGeneracion es una consulta de rango;
+     * si no, un findAllById de los números de la región que da el catálogo. En ningún caso se recorren todos.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Pokemon> getPokemonsDeRegion(Region region) {
+        if (pokemonRepo instanceof IRepositorioPorGeneracion<?> byGeneracion) {
+            return ((IRepositorioPorGeneracion<Pokemon>) byGeneracion).findByGeneracion(region);
         }
+        List<String> numeros = generaciones.numerosDe(region);
+        if (numeros.isEmpty()) return new ArrayList<>();
+        List<Pokemon> found = new ArrayList<>(pokemonRepo.findAllById(numeros));
+        found.sort(Comparator.comparing(Pokemon::getPokedexNumber));
+        return found;
+    }
 
-        int cleaned = 0;
-        for (Pokemon p : pokemonRepo.findAllToList()) {
-            if (p.getMovimientoIds().remove(movimientoId)) {
-                pokemonRepo.save(p);
-                cleaned++;
-            }
+    /**
+     * Quita refId de las entidades del repositorio que lo referencian.
+     * Si el repositorio tiene índice inverso (IRepositorioReferencias) solo se visitan las afectadas
+     * y se guardan de forma atómica; si no, se recorren todas pero se guardan con un único saveAll.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> int removeReferences(IRepositorioExtend<T, String> repo, String refId,
+                                            Function<T, List<String>> refs) {
+        if (repo instanceof IRepositorioReferencias<?> cascade) {
+            return ((IRepositorioReferencias<String>) cascade).removeReferences(refId);
         }
 
-        movimientoRepo.deleteById(movimientoId);
-        return cleaned;
+        List<T> changed = new ArrayList<>();
+        for (T e : repo.findAllToList()) {
+            if (refs.apply(e).removeIf(id -> id.equals(refId))) changed.add(e);
+        }
+        repo.saveAll(changed);
+        return changed.size();
     }
 }
@@ -0,0 +1,63 @@
+package es.pokedex.service;
+
+import es.pokedex.domain.Entrenador;
+import es.pokedex.domain.Region;
+import es.pokedex.domain.TipoPokemon;
+import es.pokedex.repository.IRepositorioPorTipo;
+import es.pokedex.repository.IRepositorioPotencias;
+import es.pokedex.repository.IRepositorioRanking;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Reportes del menú "Reportes". No recorre los datos: cada reporte sale de un agregado que el repositorio
+ * ya tiene (JSON, mantenido al escribir) o calcula en el servidor (MySQL, GROUP BY), así que cuesta
+ * lo mismo con cien registros que con millones.
+ */
+public class ReportService {
+
+    private final IRepositorioPorTipo pokemonRepo;
+    private final IRepositorioPotencias movimientoRepo;
+    private final IRepositorioRanking entrenadorRepo;
+
+    public ReportService(
+            IRepositorioPorTipo pokemonRepo,
+            IRepositorioPotencias movimientoRepo,
+            IRepositorioRanking entrenadorRepo
+    ) {
+        this.pokemonRepo = pokemonRepo;
+        this.movimientoRepo = movimientoRepo;
+        this.entrenadorRepo = entrenadorRepo;
+    }
+
+    /**
+     * Tipo → nº de Pokémon de ese tipo.
+     */
+    public Map<TipoPokemon, Long> pokemonsPorTipo() {
+        return pokemonRepo.countByTipo();
+    }
+
+    /**
+     * Los k entrenadores con más Pokémon en el equipo.
+     */
+    public List<Entrenador> topEntrenadores(int k) {
+        if (k < 0) throw new IllegalArgumentException("k debe ser >= 0");
+        return entrenadorRepo.topByTeamSize(k);
+    }
+
+    /**
+     * Tipo → histograma de potencias de sus movimientos en intervalos de la anchura indicada.
+     */
+    public Map<TipoPokemon, SortedMap<Integer, Long>> potenciasPorTipo(int anchura) {
+        return movimientoRepo.potenciaHistogram(anchura);
+    }
+
+    /**
+     * Región → nº de entrenadores de esa región.
+     */
+    public Map<Region, Long> entrenadoresPorRegion() {
+        return entrenadorRepo.countByRegion();
+    }
+}
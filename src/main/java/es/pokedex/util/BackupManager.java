@@ -0,0 +1,450 @@
+package es.pokedex.util;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Copias de seguridad de los ficheros de datos en data/backups, con política de retención.
+ *
+ * - En el camino de escritura solo se crea un enlace duro a la versión anterior del fichero (o una copia
+ *   si el sistema no admite enlaces); comprimir, calcular el delta y podar se hace en un hilo aparte.
+ * - Cada backup se guarda comprimido (gzip): completo (.full.gz, punto de control) o como delta
+ *   (.delta.gz) contra el último completo: prefijo y sufijo comunes más los bytes que cambian.
+ *   Se hace un completo nuevo cada keyframeEvery backups o cuando el delta deja de compensar.
+ *   Todo se hace en streaming (el delta se calcula contra el completo en disco): la memoria no depende
+ *   del tamaño de los ficheros. Los ficheros de más de 2 GB siempre se guardan completos.
+ * - Retención: los keepLast más recientes, el más reciente de cada una de las últimas keepHourly horas
+ *   y keepDaily días, y los completos de los que dependen. Si aun así se pasa de maxTotalBytes
+ *   se borran los más antiguos (nunca el último).
+ *
+ * Los backups antiguos sin comprimir (fichero.bak-fecha) se tratan como completos y también se podan.
+ * Configuración: backup.properties del classpath, sobrescribible con -Dbackup.xxx=...
+ */
+public final class BackupManager {
+
+    private static final String CONFIG = "backup.properties";
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter STAMP_MS = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss.SSS");
+    private static final String FULL = ".full.gz";
+    private static final String DELTA = ".delta.gz";
+    private static final String PENDING = ".pending-";
+    // Un enlace pendiente más antiguo que esto es de un proceso que salió antes de procesarlo
+    private static final long PENDING_MAX_AGE_MINUTES = 10;
+    private static final int BUFFER = 64 * 1024;
+
+    private static BackupManager shared;
+
+    private final int keepLast;
+    private final int keepHourly;
+    private final int keepDaily;
+    private final long maxTotalBytes;
+    private final int keyframeEvery;
+
+    // Último backup completo de cada fichero: nombre y tamaño sin comprimir (solo lo toca el hilo de backups)
+    private final Map<Path, Keyframe> keyframes = new HashMap<>();
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "backup-worker");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private record Keyframe(String name, long length, int deltas) {}
+
+    // Un backup en disco: fichero, momento, si es delta y de qué completo depende
+    private record Backup(Path file, LocalDateTime time, boolean delta, String base, long size) {}
+
+    /**
+     * Crea el gestor a partir de propiedades: backup.keepLast, backup.keepHourly, backup.keepDaily,
+     * backup.maxTotalBytes, backup.keyframeEvery.
+     */
+    public BackupManager(Properties props) {
+        this.keepLast = Integer.parseInt(props.getProperty("backup.keepLast", "20"));
+        this.keepHourly = Integer.parseInt(props.getProperty("backup.keepHourly", "24"));
+        this.keepDaily = Integer.parseInt(props.getProperty("backup.keepDaily", "7"));
+        this.maxTotalBytes = Long.parseLong(props.getProperty("backup.maxTotalBytes", "52428800"));
+        this.keyframeEvery = Integer.parseInt(props.getProperty("backup.keyframeEvery", "50"));
+
+        if (keepLast < 1)
+            throw new IllegalArgumentException("backup.keepLast debe ser >= 1: " + keepLast);
+
+        // Que no se pierdan los backups pendientes al salir
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> awaitIdle(5, TimeUnit.SECONDS)));
+    }
+
+    /**
+     * Gestor compartido, configurado con backup.properties la primera vez que se pide.
+     */
+    public static synchronized BackupManager shared() {
+        if (shared == null) shared = new BackupManager(loadConfig());
+        return shared;
+    }
+
+    private static Properties loadConfig() {
+        Properties props = new Properties();
+
+        try (InputStream in = BackupManager.class.getClassLoader().getResourceAsStream(CONFIG)) {
+            if (in != null) props.load(in);
+        } catch (IOException e) {
+            throw new RuntimeException("Error leyendo " + CONFIG + ": " + e.getMessage(), e);
+        }
+
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith("backup.")) props.setProperty(key, System.getProperty(key));
+        }
+        return props;
+    }
+
+    // ---------------- Camino de escritura ----------------
+
+    /**
+     * Guarda la versión actual de file antes de sustituirla. Si no existe, no hace nada.
+     * Solo enlaza (o copia) el fichero; el resto se hace en segundo plano.
+     */
+    public void backup(Path file) throws IOException {
+        if (!Files.exists(file)) return;
+        Path key = file.toAbsolutePath().normalize();
+
+        Path dir = backupDir(file);
+        Files.createDirectories(dir);
+
+        String stamp = LocalDateTime.now().format(STAMP_MS);
+        Path pending = dir.resolve(PENDING + file.getFileName() + "-" + stamp + "-" + System.nanoTime());
+        try {
+            Files.createLink(pending, file);
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(file, pending, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        try {
+            worker.execute(() -> {
+                try {
+                    store(key, pending, stamp);
+                    prune(key);
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Error guardando backup de " + file + ": " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // El gestor ya se está cerrando: el enlace no lo va a procesar nadie
+            Files.deleteIfExists(pending);
+            throw e;
+        }
+    }
+
+    /**
+     * Espera a que se terminen los backups encolados hasta ahora.
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) {
+        try {
+            Future<?> done = worker.submit(() -> {});
+            done.get(timeout, unit);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (TimeoutException | ExecutionException | RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    // ---------------- Hilo de backups ----------------
+
+    /**
+     * Comprime la versión enlazada como completo o como delta contra el último completo.
+     * Se lee en streaming: ni el fichero ni el completo se cargan en memoria.
+     */
+    private void store(Path file, Path pending, String stamp) throws IOException {
+        try {
+            Path dir = backupDir(file);
+            String prefix = file.getFileName() + ".bak-" + stamp;
+            long length = Files.size(pending);
+            Keyframe key = keyframes.get(file);
+
+            if (key != null && key.deltas() < keyframeEvery && length <= Integer.MAX_VALUE
+                    && key.length() <= Integer.MAX_VALUE && Files.exists(dir.resolve(key.name()))) {
+                long[] common = null;
+                try {
+                    common = common(dir.resolve(key.name()), key.length(), pending);
+                } catch (IOException e) {
+                    // Completo ilegible: se hace uno nuevo
+                }
+                // El delta solo compensa si es bastante menor que el fichero
+                if (common != null && length - common[0] - common[1] < length / 2) {
+                    writeDelta(unique(dir, prefix, DELTA), key.name(), pending, length, common[0], common[1]);
+                    keyframes.put(file, new Keyframe(key.name(), key.length(), key.deltas() + 1));
+                    return;
+                }
+            }
+
+            Path full = unique(dir, prefix, FULL);
+            writeGzip(full, pending);
+            keyframes.put(file, new Keyframe(full.getFileName().toString(), length, 0));
+        } finally {
+            Files.deleteIfExists(pending);
+        }
+    }
+
+    /**
+     * Borra los backups de file que no cumplen la política de retención.
+     */
+    private void prune(Path file) throws IOException {
+        deleteStalePending(file);
+        List<Backup> all = list(file);            // Del más reciente al más antiguo
+        if (all.isEmpty()) return;
+
+        Set<Backup> keep = new LinkedHashSet<>(all.subList(0, Math.min(keepLast, all.size())));
+        keep.addAll(newestPer(all, ChronoUnit.HOURS, keepHourly));
+        keep.addAll(newestPer(all, ChronoUnit.DAYS, keepDaily));
+        keep.addAll(basesOf(keep, all));
+
+        // Tope de tamaño: fuera los más antiguos (con sus deltas si es un completo), nunca el último
+        long total = keep.stream().mapToLong(Backup::size).sum();
+        List<Backup> oldestFirst = new ArrayList<>(keep);
+        Collections.reverse(oldestFirst);
+        Backup newest = all.get(0);
+        for (Backup b : oldestFirst) {
+            if (total <= maxTotalBytes) break;
+            if (!keep.contains(b)) continue;
+            List<Backup> group = new ArrayList<>(List.of(b));
+            if (!b.delta()) {
+                String name = b.file().getFileName().toString();
+                keep.stream().filter(d -> name.equals(d.base())).forEach(group::add);
+            }
+            if (group.contains(newest) || group.contains(baseOf(newest, all))) break;
+            for (Backup g : group) {
+                if (keep.remove(g)) total -= g.size();
+            }
+        }
+
+        for (Backup b : all) {
+            if (!keep.contains(b)) Files.deleteIfExists(b.file());
+        }
+    }
+
+    /**
+     * Borra los enlaces pendientes de file que llevan más de PENDING_MAX_AGE_MINUTES sin procesar:
+     * son de un proceso que terminó antes de que su hilo de backups llegara a ellos.
+     */
+    private static void deleteStalePending(Path file) throws IOException {
+        Path dir = backupDir(file);
+        if (!Files.isDirectory(dir)) return;
+        String prefix = PENDING + file.getFileName() + "-";
+        LocalDateTime limit = LocalDateTime.now().minusMinutes(PENDING_MAX_AGE_MINUTES);
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                String name = p.getFileName().toString();
+                if (!name.startsWith(prefix) || name.length() < prefix.length() + 19) continue;
+                try {
+                    LocalDateTime time = LocalDateTime.parse(name.substring(prefix.length(), prefix.length() + 19), STAMP_MS);
+                    if (time.isBefore(limit)) Files.deleteIfExists(p);
+                } catch (RuntimeException e) {
+                    // No es un enlace pendiente con fecha: no se toca
+                }
+            }
+        }
+    }
+
+    // El más reciente de cada una de las últimas n horas/días con backups
+    private static List<Backup> newestPer(List<Backup> all, ChronoUnit unit, int n) {
+        List<Backup> result = new ArrayList<>();
+        LocalDateTime lastBucket = null;
+        for (Backup b : all) {
+            if (result.size() >= n) break;
+            LocalDateTime bucket = b.time().truncatedTo(unit);
+            if (!bucket.equals(lastBucket)) {
+                result.add(b);
+                lastBucket = bucket;
+            }
+        }
+        return result;
+    }
+
+    // Completos de los que dependen los deltas conservados
+    private static List<Backup> basesOf(Collection<Backup> keep, List<Backup> all) {
+        List<Backup> bases = new ArrayList<>();
+        for (Backup b : keep) {
+            Backup base = baseOf(b, all);
+            if (base != null) bases.add(base);
+        }
+        return bases;
+    }
+
+    private static Backup baseOf(Backup b, List<Backup> all) {
+        if (!b.delta()) return null;
+        for (Backup c : all) {
+            if (c.file().getFileName().toString().equals(b.base())) return c;
+        }
+        return null;
+    }
+
+    // ---------------- Consulta y restauración ----------------
+
+    /**
+     * Backups de un fichero, del más reciente al más antiguo.
+     */
+    public List<Path> backupsOf(Path file) throws IOException {
+        return list(file).stream().map(Backup::file).collect(Collectors.toList());
+    }
+
+    /**
+     * Contenido original de un backup (completo, delta o antiguo sin comprimir).
+     */
+    public byte[] restore(Path backup) throws IOException {
+        String name = backup.getFileName().toString();
+        if (name.endsWith(FULL)) return readGzip(backup);
+        if (!name.endsWith(DELTA)) return Files.readAllBytes(backup);
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(readGzip(backup)))) {
+            String base = in.readUTF();
+            int prefix = in.readInt();
+            int suffix = in.readInt();
+            byte[] middle = in.readNBytes(in.readInt());
+
+            byte[] from = restore(backup.resolveSibling(base));
+            byte[] result = new byte[prefix + middle.length + suffix];
+            System.arraycopy(from, 0, result, 0, prefix);
+            System.arraycopy(middle, 0, result, prefix, middle.length);
+            System.arraycopy(from, from.length - suffix, result, prefix + middle.length, suffix);
+            return result;
+        }
+    }
+
+    private List<Backup> list(Path file) throws IOException {
+        Path dir = backupDir(file);
+        if (!Files.isDirectory(dir)) return List.of();
+
+        String prefix = file.getFileName() + ".bak-";
+        List<Backup> result = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                String name = p.getFileName().toString();
+                if (!name.startsWith(prefix)) continue;
+                LocalDateTime time;
+                try {
+                    time = LocalDateTime.parse(name.substring(prefix.length(), prefix.length() + 15), STAMP);
+                } catch (RuntimeException e) {
+                    continue; // No es un backup con fecha
+                }
+                boolean delta = name.endsWith(DELTA);
+                try {
+                    result.add(new Backup(p, time, delta, delta ? baseName(p) : null, Files.size(p)));
+                } catch (NoSuchFileException e) {
+                    // Otro proceso que comparte data/ lo ha podado mientras tanto
+                }
+            }
+        }
+        // Por nombre: la fecha (con milisegundos en los nuevos) ordena cronológicamente
+        result.sort(Comparator.comparing((Backup b) -> b.file().getFileName().toString()).reversed());
+        return result;
+    }
+
+    // ---------------- Formato ----------------
+
+    /**
+     * Prefijo y sufijo comunes entre el completo base (comprimido; baseLength bytes sin comprimir) y file.
+     * Una sola pasada por el completo: cada trozo se compara con el mismo tramo de file para el prefijo
+     * y con el tramo alineado por el final para el sufijo (la racha de coincidencias con la que se acaba).
+     */
+    private static long[] common(Path base, long baseLength, Path file) throws IOException {
+        long length = Files.size(file);
+        long shift = length - baseLength;   // from[j] se compara con to[j + shift] para el sufijo
+        long max = Math.min(baseLength, length);
+        long prefix = 0;
+        boolean inPrefix = true;
+        long run = 0;
+        byte[] from = new byte[BUFFER];
+        byte[] head = new byte[BUFFER];
+        byte[] tail = new byte[BUFFER];
+        try (InputStream baseIn = new GZIPInputStream(Files.newInputStream(base), BUFFER);
+             InputStream headIn = Files.newInputStream(file);
+             InputStream tailIn = Files.newInputStream(file)) {
+            if (shift > 0) tailIn.skipNBytes(shift);
+            for (long j = 0; j < baseLength; ) {
+                int n = baseIn.readNBytes(from, 0, (int) Math.min(BUFFER, baseLength - j));
+                if (n == 0) throw new EOFException("Backup completo incompleto: " + base);
+                if (inPrefix) {
+                    int m = headIn.readNBytes(head, 0, (int) Math.max(0, Math.min(n, max - j)));
+                    int i = 0;
+                    while (i < m && head[i] == from[i]) i++;
+                    prefix += i;
+                    if (i < n) inPrefix = false;
+                }
+                // Las primeras posiciones no tienen pareja en to si to es más corto
+                int start = (int) Math.max(0, Math.min(n, -shift - j));
+                if (start > 0) run = 0;
+                int m = tailIn.readNBytes(tail, 0, n - start);
+                for (int i = 0; i < m; i++) run = tail[i] == from[start + i] ? run + 1 : 0;
+                j += n;
+            }
+        }
+        return new long[]{prefix, Math.min(run, max - prefix)};
+    }
+
+    /**
+     * Escribe el delta de file (length bytes) respecto al completo baseName: nombre del completo,
+     * prefijo y sufijo comunes y los bytes intermedios, copiados de file en streaming.
+     */
+    private static void writeDelta(Path target, String baseName, Path file, long length, long prefix, long suffix)
+            throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        long middle = length - prefix - suffix;
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(tmp), BUFFER));
+             InputStream in = Files.newInputStream(file)) {
+            out.writeUTF(baseName);
+            out.writeInt((int) prefix);
+            out.writeInt((int) suffix);
+            out.writeInt((int) middle);
+            in.skipNBytes(prefix);
+            byte[] buf = new byte[BUFFER];
+            for (long left = middle; left > 0; ) {
+                int n = in.readNBytes(buf, 0, (int) Math.min(buf.length, left));
+                if (n == 0) throw new EOFException("El fichero cambió mientras se guardaba el backup: " + file);
+                out.write(buf, 0, n);
+                left -= n;
+            }
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String baseName(Path delta) throws IOException {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(Files.newInputStream(delta)))) {
+            return in.readUTF();
+        } catch (IOException e) {
+            return null; // Delta dañado: no protege a ningún completo
+        }
+    }
+
+    private static void writeGzip(Path target, Path source) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp), BUFFER)) {
+            Files.copy(source, out);
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static byte[] readGzip(Path file) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            return in.readAllBytes();
+        }
+    }
+
+    // Nombre libre para el backup (dos escrituras en el mismo milisegundo no se pisan)
+    private static Path unique(Path dir, String prefix, String suffix) {
+        Path p = dir.resolve(prefix + suffix);
+        for (int i = 1; Files.exists(p); i++) p = dir.resolve(prefix + "-" + i + suffix);
+        return p;
+    }
+
+    private static Path backupDir(Path file) {
+        return file.toAbsolutePath().getParent().resolve("backups");
+    }
+}
@@ -0,0 +1,265 @@
+package es.pokedex.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+
+/**
+ * Snapshot binario compacto de una lista de entidades, alternativa al JSON con sangría.
+ * Se lee con FileChannel.map: abrirlo no deserializa nada y findById es una búsqueda binaria
+ * sobre la tabla de offsets que solo decodifica el registro encontrado.
+ *
+ * Formato (big-endian):
+ *   cabecera   magic (int) | versión (short) | ancho de clave (short) | nº de registros (int)
+ *   índice     por registro: ID en ASCII (ancho fijo) | offset del registro (int), ordenado por ID
+ *   datos      registros en el orden de la lista, codificados por el Codec
+ */
+public final class BinarySnapshot<T> {
+
+    private static final int MAGIC = 0x504B4442; // "PKDB"
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+
+    /**
+     * Cómo se codifica una entidad concreta. El ID debe ser ASCII de ancho fijo (keyWidth).
+     */
+    public interface Codec<T> {
+        int keyWidth();
+
+        String idOf(T entity);
+
+        void write(T entity, DataOutput out) throws IOException;
+
+        T read(ByteBuffer in);
+    }
+
+    private final Path path;
+    private final Codec<T> codec;
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int entrySize;
+    private final FileTime lastModified;
+    private final long size;
+
+    private BinarySnapshot(Path path, Codec<T> codec, ByteBuffer buffer, FileTime lastModified, long size) {
+        this.path = path;
+        this.codec = codec;
+        this.buffer = buffer;
+        this.lastModified = lastModified;
+        this.size = size;
+
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+            throw new RuntimeException("Not a binary snapshot: " + path);
+        if (buffer.getShort(4) != VERSION)
+            throw new RuntimeException("Unsupported binary snapshot version " + buffer.getShort(4) + ": " + path);
+        if (buffer.getShort(6) != codec.keyWidth())
+            throw new RuntimeException("Binary snapshot " + path + " has key width " + buffer.getShort(6)
+                    + ", expected " + codec.keyWidth());
+
+        this.count = buffer.getInt(8);
+        this.entrySize = codec.keyWidth() + Integer.BYTES;
+    }
+
+    /**
+     * Mapea el fichero en memoria (solo lectura). El mapeo sigue siendo válido aunque el fichero
+     * se sustituya después; isCurrent() dice si sigue siendo el que hay en disco.
+     */
+    public static <T> BinarySnapshot<T> open(Path path, Codec<T> codec) {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            FileTime lastModified = Files.getLastModifiedTime(path);
+            long size = ch.size();
+            MappedByteBuffer buffer = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new BinarySnapshot<>(path, codec, buffer, lastModified, size);
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading binary snapshot " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Escribe la lista como snapshot binario. Misma política que JsonFileStore.writeList:
+     * backup del fichero anterior y escritura atómica (.tmp y move).
+     */
+    public static <T> void write(Path path, List<T> list, Codec<T> codec) {
+        int width = codec.keyWidth();
+        try {
+            // Registros primero, para conocer sus offsets
+            ByteArrayOutputStream data = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(data);
+            String[] keys = new String[list.size()];
+            int[] offsets = new int[list.size()];
+            for (int i = 0; i < list.size(); i++) {
+                T e = list.get(i);
+                keys[i] = codec.idOf(e);
+                offsets[i] = out.size();
+                codec.write(e, out);
+            }
+
+            Integer[] order = new Integer[list.size()];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            Arrays.sort(order, Comparator.comparing(i -> keys[i]));
+
+            int dataStart = HEADER_SIZE + list.size() * (width + Integer.BYTES);
+            ByteBuffer head = ByteBuffer.allocate(dataStart);
+            head.putInt(MAGIC).putShort(VERSION).putShort((short) width).putInt(list.size());
+            for (int i : order) {
+                head.put(key(keys[i], width));
+                head.putInt(dataStart + offsets[i]);
+            }
+            head.flip();
+
+            JsonFileStore.backup(path);
+            Path tmp = path.resolveSibling(path.getFileName().toString() + ".tmp");
+            try (FileChannel ch = FileChannel.open(tmp,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer body = ByteBuffer.wrap(data.toByteArray());
+                while (head.hasRemaining()) ch.write(head);
+                while (body.hasRemaining()) ch.write(body);
+                ch.force(false);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing binary snapshot " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    // ---------------- Lectura ----------------
+
+    public int count() { return count; }
+
+    /**
+     * Búsqueda binaria en el índice; solo se decodifica el registro encontrado. null si no existe.
+     */
+    public T findById(String id) {
+        int i = indexOf(id);
+        return i < 0 ? null : readAt(buffer.getInt(HEADER_SIZE + i * entrySize + codec.keyWidth()));
+    }
+
+    public boolean containsId(String id) {
+        return indexOf(id) >= 0;
+    }
+
+    /**
+     * Decodifica todos los registros, en el orden en que se escribieron.
+     */
+    public List<T> readAll() {
+        List<T> result = new ArrayList<>(count);
+        ByteBuffer in = buffer.duplicate();
+        in.position(HEADER_SIZE + count * entrySize);
+        for (int i = 0; i < count; i++) result.add(codec.read(in));
+        return result;
+    }
+
+    /**
+     * true si el fichero no ha cambiado desde que se mapeó (misma fecha y tamaño).
+     */
+    public boolean isCurrent() {
+        try {
+            return Files.exists(path) && Files.getLastModifiedTime(path).equals(lastModified) && Files.size(path) == size;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private T readAt(int offset) {
+        ByteBuffer in = buffer.duplicate();
+        in.position(offset);
+        return codec.read(in);
+    }
+
+    private int indexOf(String id) {
+        int width = codec.keyWidth();
+        if (id == null || id.length() != width) return -1;
+        byte[] key = key(id, width);
+
+        int lo = 0, hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compareKey(HEADER_SIZE + mid * entrySize, key);
+            if (cmp < 0) lo = mid + 1;
+            else if (cmp > 0) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    // Compara la clave del índice en esa posición con key, byte a byte (ASCII)
+    private int compareKey(int pos, byte[] key) {
+        for (int i = 0; i < key.length; i++) {
+            int c = Byte.compare(buffer.get(pos + i), key[i]);
+            if (c != 0) return c;
+        }
+        return 0;
+    }
+
+    private static byte[] key(String id, int width) {
+        byte[] bytes = id.getBytes(StandardCharsets.US_ASCII);
+        if (bytes.length != width)
+            throw new IllegalArgumentException("ID '" + id + "' must have " + width + " ASCII characters");
+        return bytes;
+    }
+
+    // ---------------- Ayudas para los Codec ----------------
+
+    /**
+     * ID de ancho fijo en ASCII.
+     */
+    public static void writeKey(DataOutput out, String id, int width) throws IOException {
+        out.write(key(id, width));
+    }
+
+    public static String readKey(ByteBuffer in, int width) {
+        byte[] bytes = new byte[width];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Texto libre: longitud (unsigned short) + UTF-8.
+     */
+    public static void writeText(DataOutput out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) throw new IllegalArgumentException("Text too long for binary snapshot: " + s.length());
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readText(ByteBuffer in) {
+        byte[] bytes = new byte[Short.toUnsignedInt(in.getShort())];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Lista de IDs referenciados: nº (unsigned short) y cada uno como longitud (byte) + ASCII.
+     */
+    public static void writeIds(DataOutput out, List<String> ids) throws IOException {
+        if (ids.size() > 0xFFFF) throw new IllegalArgumentException("Too many ids for binary snapshot: " + ids.size());
+        out.writeShort(ids.size());
+        for (String id : ids) {
+            byte[] bytes = id.getBytes(StandardCharsets.US_ASCII);
+            if (bytes.length > 0xFF) throw new IllegalArgumentException("ID too long for binary snapshot: " + id);
+            out.writeByte(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    public static List<String> readIds(ByteBuffer in) {
+        int n = Short.toUnsignedInt(in.getShort());
+        List<String> ids = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            byte[] bytes = new byte[Byte.toUnsignedInt(in.get())];
+            in.get(bytes);
+            ids.add(new String(bytes, StandardCharsets.US_ASCII));
+        }
+        return ids;
+    }
+}
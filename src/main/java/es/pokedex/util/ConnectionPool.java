@@ -0,0 +1,321 @@
+package es.pokedex.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool de conexiones JDBC acotado (al estilo HikariCP, pero mínimo).
+ * - Reutiliza conexiones ya abiertas en lugar de abrir una por consulta.
+ * - Mantiene entre minIdle y maxSize conexiones; las ociosas de más se cierran pasado idleTimeout.
+ * - Valida las conexiones que llevan un rato paradas con la consulta de validación antes de entregarlas.
+ * - Avisa por System.err si una conexión lleva prestada más de leakDetectionThreshold (posible fuga).
+ * - Cada conexión física guarda sus PreparedStatement en una caché LRU (StatementCache, statementCacheSize).
+ *
+ * Las conexiones entregadas son envoltorios: close() las devuelve al pool en vez de cerrarlas.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    // Una conexión que se ha usado hace menos de esto se entrega sin validar
+    private static final long VALIDATION_BYPASS_MS = 500;
+    private static final long HOUSEKEEPING_PERIOD_MS = 30_000;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minIdle;
+    private final int maxSize;
+    private final long idleTimeoutMs;
+    private final long connectionTimeoutMs;
+    private final long leakDetectionThresholdMs;
+    private final String validationQuery;
+    private final int statementCacheSize;
+    private final StatementCache.Metrics statementMetrics = new StatementCache.Metrics();
+
+    private final BlockingDeque<PhysicalConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<Lease> leased = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger opening = new AtomicInteger();   // Abriéndose: aún ni ociosas ni prestadas
+    private final Semaphore permits;
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    // Conexión física, sus sentencias preparadas y cuándo se usó por última vez
+    private static final class PhysicalConnection {
+        final Connection connection;
+        final StatementCache statements;
+        volatile long lastUsed = System.currentTimeMillis();
+
+        PhysicalConnection(Connection connection, StatementCache statements) {
+            this.connection = connection;
+            this.statements = statements;
+        }
+    }
+
+    /**
+     * Aciertos, fallos y expulsiones de las cachés de sentencias de todas las conexiones.
+     */
+    public record StatementCacheStats(long hits, long misses, long evictions) {
+        public double hitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    // Préstamo de una conexión: quién la pidió y cuándo, para detectar fugas.
+    // La pila de quien la pidió solo se captura si la detección de fugas está activa: es lo más caro del préstamo
+    private static final class Lease {
+        final PhysicalConnection physical;
+        final long borrowedAt = System.currentTimeMillis();
+        final StackTraceElement[] origin;   // null sin detección de fugas
+        volatile boolean returned;
+        volatile boolean leakReported;
+
+        Lease(PhysicalConnection physical, StackTraceElement[] origin) {
+            this.physical = physical;
+            this.origin = origin;
+        }
+    }
+
+    /**
+     * Crea el pool a partir de propiedades:
+     * db.url, db.user, db.password, pool.minIdle, pool.maxSize, pool.idleTimeoutMs,
+     * pool.connectionTimeoutMs, pool.leakDetectionThresholdMs, pool.validationQuery,
+     * pool.statementCacheSize (sentencias preparadas por conexión; 0 = sin caché).
+     */
+    public ConnectionPool(Properties props) {
+        this.url = required(props, "db.url");
+        this.user = props.getProperty("db.user", "");
+        this.password = props.getProperty("db.password", "");
+        this.minIdle = Integer.parseInt(props.getProperty("pool.minIdle", "2"));
+        this.maxSize = Integer.parseInt(props.getProperty("pool.maxSize", "10"));
+        this.idleTimeoutMs = Long.parseLong(props.getProperty("pool.idleTimeoutMs", "600000"));
+        this.connectionTimeoutMs = Long.parseLong(props.getProperty("pool.connectionTimeoutMs", "30000"));
+        this.leakDetectionThresholdMs = Long.parseLong(props.getProperty("pool.leakDetectionThresholdMs", "60000"));
+        this.validationQuery = props.getProperty("pool.validationQuery", "SELECT 1");
+        this.statementCacheSize = Integer.parseInt(props.getProperty("pool.statementCacheSize", "64"));
+
+        if (maxSize < 1 || minIdle < 0 || minIdle > maxSize)
+            throw new IllegalArgumentException("pool.minIdle/pool.maxSize no válidos: " + minIdle + "/" + maxSize);
+        if (statementCacheSize < 0)
+            throw new IllegalArgumentException("pool.statementCacheSize no válido: " + statementCacheSize);
+
+        this.permits = new Semaphore(maxSize, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, HOUSEKEEPING_PERIOD_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private static String required(Properties props, String key) {
+        String v = props.getProperty(key);
+        if (v == null || v.isBlank()) throw new IllegalArgumentException("Falta la propiedad " + key);
+        return v;
+    }
+
+    // ---------------- Préstamo y devolución ----------------
+
+    /**
+     * Presta una conexión. Espera como máximo connectionTimeoutMs si todas están ocupadas.
+     * Hay que cerrarla (try-with-resources) para devolverla al pool.
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) throw new SQLException("El pool de conexiones está cerrado");
+
+        try {
+            if (!permits.tryAcquire(connectionTimeoutMs, TimeUnit.MILLISECONDS))
+                throw new SQLException("Tiempo de espera agotado (" + connectionTimeoutMs + " ms) esperando una conexión del pool");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido esperando una conexión del pool", e);
+        }
+
+        boolean opened = false;
+        try {
+            PhysicalConnection pc;
+            // La más reciente primero: es la que más probablemente sigue viva
+            while ((pc = idle.pollFirst()) != null) {
+                if (isUsable(pc)) break;
+                closeQuietly(pc);
+            }
+            if (pc == null) {
+                opening.incrementAndGet();
+                opened = true;
+                pc = open();
+            }
+
+            Lease lease = new Lease(pc, leakDetectionThresholdMs > 0 ? new Throwable().getStackTrace() : null);
+            leased.add(lease);
+            return proxy(lease);
+
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        } finally {
+            if (opened) opening.decrementAndGet();   // Ya cuenta como prestada (o falló)
+        }
+    }
+
+    /**
+     * Devuelve la conexión al pool dejando el estado por defecto (autocommit, sin transacción abierta).
+     */
+    private void release(Lease lease) {
+        if (lease.returned) return;
+        lease.returned = true;
+        leased.remove(lease);
+
+        PhysicalConnection pc = lease.physical;
+        try {
+            if (!pc.connection.getAutoCommit()) {
+                pc.connection.rollback();
+                pc.connection.setAutoCommit(true);
+            }
+            pc.lastUsed = System.currentTimeMillis();
+            if (closed) closeQuietly(pc);
+            else idle.addFirst(pc);
+        } catch (SQLException e) {
+            closeQuietly(pc);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Envoltorio de la conexión: close() devuelve al pool y, después, cualquier uso falla.
+     * prepareStatement(sql) y prepareStatement(sql, tipo, concurrencia) pasan por la caché de sentencias.
+     */
+    private Connection proxy(Lease lease) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (obj, method, args) -> {
+                    switch (method.getName()) {
+                        case "close" -> { release(lease); return null; }
+                        case "isClosed" -> { return lease.returned || lease.physical.connection.isClosed(); }
+                        case "equals" -> { return obj == args[0]; }
+                        case "hashCode" -> { return System.identityHashCode(obj); }
+                        case "toString" -> { return "Pooled[" + lease.physical.connection + "]"; }
+                    }
+                    if (lease.returned) throw new SQLException("La conexión ya se devolvió al pool");
+                    if (method.getName().equals("prepareStatement")) {
+                        if (args.length == 1)
+                            return lease.physical.statements.prepare((Connection) obj, (String) args[0],
+                                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                        if (args.length == 3 && args[1] instanceof Integer type && args[2] instanceof Integer concurrency)
+                            return lease.physical.statements.prepare((Connection) obj, (String) args[0], type, concurrency);
+                    }
+                    try {
+                        return method.invoke(lease.physical.connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    // ---------------- Conexiones físicas ----------------
+
+    private PhysicalConnection open() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, user, password);
+        return new PhysicalConnection(connection, new StatementCache(connection, statementCacheSize, statementMetrics));
+    }
+
+    /**
+     * Una conexión usada hace poco se da por buena; si no, se comprueba con la consulta de validación.
+     */
+    private boolean isUsable(PhysicalConnection pc) {
+        if (System.currentTimeMillis() - pc.lastUsed < VALIDATION_BYPASS_MS) return true;
+        try (Statement st = pc.connection.createStatement()) {
+            st.setQueryTimeout(5);
+            st.execute(validationQuery);
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(PhysicalConnection pc) {
+        try {
+            pc.connection.close();
+        } catch (SQLException ignored) {
+            // La conexión ya no sirve: no hay nada más que hacer
+        }
+    }
+
+    // ---------------- Mantenimiento periódico ----------------
+
+    /**
+     * Cierra las conexiones ociosas caducadas (por encima de minIdle),
+     * rellena hasta minIdle y avisa de posibles fugas.
+     */
+    private void housekeep() {
+        if (closed) return;
+        long now = System.currentTimeMillis();
+
+        // Expulsión de ociosas: se recorren desde la más antigua
+        while (idle.size() > minIdle) {
+            PhysicalConnection oldest = idle.peekLast();
+            if (oldest == null || now - oldest.lastUsed < idleTimeoutMs) break;
+            if (idle.removeLastOccurrence(oldest)) closeQuietly(oldest);
+        }
+
+        // Relleno hasta el mínimo sin pasar del máximo (contando las que están abriendo los que piden una)
+        try {
+            while (idle.size() < minIdle && idle.size() + leased.size() + opening.get() < maxSize) {
+                opening.incrementAndGet();
+                try {
+                    idle.addLast(open());
+                } finally {
+                    opening.decrementAndGet();
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("No se pudo abrir conexión para el pool: " + e.getMessage());
+        }
+
+        // Detección de fugas
+        if (leakDetectionThresholdMs > 0) {
+            for (Lease lease : leased) {
+                if (!lease.leakReported && now - lease.borrowedAt > leakDetectionThresholdMs) {
+                    lease.leakReported = true;
+                    StringBuilder msg = new StringBuilder("Posible fuga: conexión prestada hace más de ")
+                            .append(leakDetectionThresholdMs).append(" ms sin devolver. Se pidió en:");
+                    for (StackTraceElement frame : lease.origin) msg.append(System.lineSeparator()).append("\tat ").append(frame);
+                    System.err.println(msg);
+                }
+            }
+        }
+    }
+
+    // ---------------- Estado ----------------
+
+    public int getIdleCount() { return idle.size(); }
+
+    public int getActiveCount() { return leased.size(); }
+
+    public int getMaxSize() { return maxSize; }
+
+    public StatementCacheStats getStatementCacheStats() {
+        return new StatementCacheStats(statementMetrics.hits.sum(), statementMetrics.misses.sum(),
+                statementMetrics.evictions.sum());
+    }
+
+    /**
+     * Cierra las conexiones ociosas; las prestadas se cierran al devolverse.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PhysicalConnection pc;
+        while ((pc = idle.pollFirst()) != null) closeQuietly(pc);
+    }
+}
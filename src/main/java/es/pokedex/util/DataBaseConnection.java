@@ -1,17 +1,113 @@
 package es.pokedex.util;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Properties;
+import java.util.function.Supplier;
 
 public class DataBaseConnection {
 
-    private static final String URL =
-            "jdbc:mysql://localhost:3306/pokedex_db?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC";
-    private static final String USER = "root";
-    private static final String PASSWORD = "root";
+    // Fichero de configuración en el classpath (src/main/resources)
+    private static final String CONFIG = "database.properties";
 
+    private static ConnectionPool pool;
+
+    // Conexión de la transacción en curso en este hilo (ver transaction)
+    private static final ThreadLocal<Connection> TRANSACTION = new ThreadLocal<>();
+
+    /**
+     * Presta una conexión del pool. Cerrarla la devuelve al pool.
+     * Dentro de transaction() devuelve siempre la conexión de la transacción.
+     */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASSWORD);
+        Connection tx = TRANSACTION.get();
+        if (tx != null) return tx;
+        return getPool().getConnection();
+    }
+
+    /**
+     * Ejecuta work en una sola transacción: todas las conexiones que se pidan en este hilo mientras tanto
+     * son la misma y se hace un único commit al final (rollback si work lanza una excepción).
+     * Lo que los repositorios hagan con ella (setAutoCommit, commit, close) no tiene efecto: se unen a la
+     * transacción. Si ya hay una en curso, work se une a ella.
+     */
+    public static <R> R transaction(Supplier<R> work) {
+        if (TRANSACTION.get() != null) return work.get();
+
+        try (Connection con = getPool().getConnection()) {
+            con.setAutoCommit(false);
+            TRANSACTION.set(joined(con));
+            try {
+                R result = work.get();
+                con.commit();
+                return result;
+            } catch (RuntimeException | Error e) {
+                try {
+                    con.rollback();
+                } catch (SQLException re) {
+                    e.addSuppressed(re);
+                }
+                throw e;
+            } finally {
+                TRANSACTION.remove();
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error en la transacción", e);
+        }
+    }
+
+    /**
+     * Vista de la conexión de una transacción para los que la piden dentro: no la cierran,
+     * no cambian el autocommit y no confirman por su cuenta (un rollback sí se respeta).
+     */
+    private static Connection joined(Connection con) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (obj, method, args) -> {
+                    switch (method.getName()) {
+                        case "close", "commit", "setAutoCommit" -> { return null; }
+                        case "getAutoCommit" -> { return false; }
+                        case "equals" -> { return obj == args[0]; }
+                        case "hashCode" -> { return System.identityHashCode(obj); }
+                        case "toString" -> { return "Transaction[" + con + "]"; }
+                    }
+                    try {
+                        return method.invoke(con, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * Pool compartido, creado la primera vez que se pide una conexión.
+     */
+    public static synchronized ConnectionPool getPool() {
+        if (pool == null) pool = new ConnectionPool(loadConfig());
+        return pool;
+    }
+
+    /**
+     * Lee database.properties del classpath. Cualquier clave se puede
+     * sobrescribir con una propiedad del sistema (-Ddb.url=...).
+     */
+    private static Properties loadConfig() {
+        Properties props = new Properties();
+
+        try (InputStream in = DataBaseConnection.class.getClassLoader().getResourceAsStream(CONFIG)) {
+            if (in != null) props.load(in);
+        } catch (IOException e) {
+            throw new RuntimeException("Error leyendo " + CONFIG + ": " + e.getMessage(), e);
+        }
+
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith("db.") || key.startsWith("pool.")) props.setProperty(key, System.getProperty(key));
+        }
+        return props;
     }
 }
@@ -0,0 +1,200 @@
+package es.pokedex.util;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Coordinación entre procesos que comparten un fichero de datos (varios MainApp sobre el mismo data/).
+ * Junto al fichero hay otro con el mismo nombre y extensión .lock que sirve para dos cosas:
+ * - Lock exclusivo del sistema operativo (FileChannel.lock) mientras un proceso escribe.
+ * - Sello de versión (un long): cada escritor lo incrementa tras escribir; si al ir a escribir no es
+ *   el que leyó, otro proceso cambió el fichero entre medias (control optimista).
+ * Además avisa (WatchService, sin sondear) cuando cambian el fichero o su sello, en este u otro proceso.
+ *
+ * Hay una sola instancia por fichero en cada JVM (of), así varios repositorios sobre el mismo fichero
+ * comparten el lock: el lock del sistema es por proceso y no se puede pedir dos veces.
+ */
+public final class DataFileLock {
+
+    private static final Map<Path, DataFileLock> LOCKS = new ConcurrentHashMap<>();
+
+    // Oyentes por fichero vigilado; débiles para no retener repositorios que ya no se usan
+    private static final Map<Path, List<WeakReference<Runnable>>> LISTENERS = new ConcurrentHashMap<>();
+    private static final Map<Path, WatchKey> WATCHED_DIRS = new ConcurrentHashMap<>();
+    private static WatchService watcher;
+
+    private final Path file;
+    private final Path lockFile;
+    private final ReentrantLock local = new ReentrantLock();   // Hilos de este proceso
+    private FileChannel channel;
+    private FileLock held;                                     // Lock del sistema, mientras local está tomado
+
+    private DataFileLock(Path file) {
+        this.file = file;
+        this.lockFile = file.resolveSibling(file.getFileName() + ".lock");
+    }
+
+    /**
+     * Instancia compartida para ese fichero de datos.
+     */
+    public static DataFileLock of(Path file) {
+        return LOCKS.computeIfAbsent(file.toAbsolutePath().normalize(), DataFileLock::new);
+    }
+
+    /**
+     * Ejecuta body con el fichero bloqueado para este hilo y para los demás procesos.
+     * Es reentrante: si el hilo ya tiene el lock simplemente ejecuta body.
+     */
+    public <R> R locked(Supplier<R> body) {
+        local.lock();
+        try {
+            if (local.getHoldCount() == 1) held = channel().lock();
+            try {
+                return body.get();
+            } finally {
+                if (local.getHoldCount() == 1) {
+                    FileLock l = held;
+                    held = null;
+                    l.release();
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error locking " + lockFile + ": " + e.getMessage(), e);
+        } finally {
+            local.unlock();
+        }
+    }
+
+    /**
+     * Sello de versión actual del fichero (0 si nadie ha escrito aún). No necesita el lock:
+     * basta para saber si el fichero cambió desde que se leyó.
+     */
+    public long version() {
+        try {
+            ByteBuffer buf = ByteBuffer.allocate(Long.BYTES);
+            FileChannel ch = channel();
+            while (buf.hasRemaining()) {
+                if (ch.read(buf, buf.position()) < 0) return 0;
+            }
+            return buf.getLong(0);
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading version of " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Incrementa el sello tras escribir el fichero y devuelve el nuevo. Con el lock tomado.
+     */
+    public long bump() {
+        if (!local.isHeldByCurrentThread())
+            throw new IllegalStateException("bump() requires the lock of " + file);
+        try {
+            long next = version() + 1;
+            ByteBuffer buf = ByteBuffer.allocate(Long.BYTES).putLong(0, next);
+            FileChannel ch = channel();
+            while (buf.hasRemaining()) ch.write(buf, buf.position());
+            return next;
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing version of " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private synchronized FileChannel channel() throws IOException {
+        // Un hilo interrumpido mientras esperaba el lock cierra el canal: se vuelve a abrir
+        if (channel == null || !channel.isOpen()) {
+            if (lockFile.getParent() != null) Files.createDirectories(lockFile.getParent());
+            channel = FileChannel.open(lockFile,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        }
+        return channel;
+    }
+
+    // ---------------- Avisos de cambios ----------------
+
+    /**
+     * Llama a listener (desde el hilo vigilante) cada vez que se crea o modifica el fichero o su sello,
+     * lo haga este proceso u otro. El aviso solo dice que hay que comprobar; no que haya cambiado.
+     * Solo se guarda una referencia débil: quien registra debe conservar el listener.
+     * Devuelve false si el sistema de ficheros no admite vigilancia (hay que comprobar en cada lectura).
+     */
+    public boolean watch(Runnable listener) {
+        try {
+            Path dir = file.toAbsolutePath().normalize().getParent();
+            synchronized (DataFileLock.class) {
+                if (watcher == null) {
+                    watcher = FileSystems.getDefault().newWatchService();
+                    Thread t = new Thread(DataFileLock::watchLoop, "data-file-watcher");
+                    t.setDaemon(true);
+                    t.start();
+                }
+                Files.createDirectories(dir);
+                WatchKey key = WATCHED_DIRS.get(dir);
+                if (key == null || !key.isValid()) {
+                    WATCHED_DIRS.put(dir, dir.register(watcher,
+                            StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                            StandardWatchEventKinds.ENTRY_DELETE));
+                }
+            }
+            WeakReference<Runnable> ref = new WeakReference<>(listener);
+            for (Path p : List.of(file.toAbsolutePath().normalize(), lockFile.toAbsolutePath().normalize())) {
+                LISTENERS.computeIfAbsent(p, k -> new CopyOnWriteArrayList<>()).add(ref);
+            }
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Bucle del hilo vigilante: reparte los eventos de cada directorio entre los oyentes de cada fichero.
+     * Si se pierden eventos (OVERFLOW) avisa a todos los del directorio.
+     */
+    private static void watchLoop() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watcher.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            Path dir = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    LISTENERS.keySet().stream().filter(p -> dir.equals(p.getParent())).forEach(DataFileLock::notify);
+                } else {
+                    notify(dir.resolve((Path) event.context()));
+                }
+            }
+            if (!key.reset()) WATCHED_DIRS.remove(dir, key);
+        }
+    }
+
+    private static void notify(Path path) {
+        List<WeakReference<Runnable>> refs = LISTENERS.get(path);
+        if (refs == null) return;
+        for (WeakReference<Runnable> ref : refs) {
+            Runnable r = ref.get();
+            if (r == null) {
+                refs.remove(ref);
+                continue;
+            }
+            try {
+                r.run();
+            } catch (RuntimeException ignored) {
+                // Un oyente con problemas no debe parar la vigilancia de los demás
+            }
+        }
+    }
+}
@@ -1,23 +1,36 @@
 package es.pokedex.util;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import java.io.IOException;
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
-import java.time.format.DateTimeFormatter;
-import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class JsonFileStore {
 
+    // Tamaño del búfer de lectura/escritura sobre el canal del fichero
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     // ObjectMapper configurado para trabajar con JSON y tipos de fecha/hora Java
     private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
 
     /**
      * Lee un fichero JSON y lo convierte en una lista del tipo indicado.
      * Si el archivo no existe o está vacío → crea "[] y devuelve lista vacía.
+     * Se parsea directamente desde el fichero, sin cargar antes todo el texto en memoria.
      */
     public <T> List<T> readList(Path path, TypeReference<List<T>> ref) {
         try {
@@ -27,58 +40,98 @@ public class JsonFileStore {
                 return Collections.emptyList();
             }
 
-            // Lee todo el contenido del archivo
-            byte[] bytes = Files.readAllBytes(path);
-            String s = new String(bytes);
+            try (JsonParser parser = mapper.createParser(openInput(path))) {
+                // Si está vacío, lo inicializa como "[]"
+                if (parser.nextToken() == null) {
+                    writeString(path, "[]");
+                    return Collections.emptyList();
+                }
 
-            // Si está vacío, lo inicializa como "[]"
-            if (s.isBlank()) {
-                writeString(path, "[]");
-                return Collections.emptyList();
+                // Convierte JSON a lista usando Jackson
+                return mapper.readValue(parser, ref);
             }
 
-            // Convierte JSON a lista usando Jackson
-            return mapper.readValue(s, ref);
-
         } catch (IOException e) {
             throw new RuntimeException("Error reading JSON file " + path + ": " + e.getMessage(), e);
         }
     }
 
     /**
-     * Escribe una lista en JSON en el archivo indicado.
-     * Hace backup automático, y la escritura es atómica (usa .tmp y move).
+     * Recorre los elementos del array JSON de un fichero de uno en uno, sin cargarlos todos:
+     * la memoria usada no depende del tamaño del fichero.
+     * Si el archivo no existe o está vacío devuelve un Stream vacío.
+     * El fichero queda abierto hasta cerrar el Stream (usar try-with-resources).
      */
-    public <T> void writeList(Path path, List<T> list) {
-        try {
-            String json = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(list);
+    public <T> Stream<T> readStream(Path path, TypeReference<List<T>> ref) {
+        if (!Files.exists(path)) return Stream.empty();
 
-            // Si el archivo ya existe, crea copia en /backups/
-            if (Files.exists(path)) {
-                Path backupDir = path.getParent().resolve("backups");
-
-                if (!Files.exists(backupDir))
-                    Files.createDirectories(backupDir);
+        JavaType elementType = mapper.getTypeFactory().constructType(ref).getContentType();
+        MappingIterator<T> it;
+        try {
+            // readValues recorre el contenido del array raíz elemento a elemento
+            it = mapper.readerFor(elementType).readValues(openInput(path));
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading JSON file " + path + ": " + e.getMessage(), e);
+        }
 
-                // Nombre del backup con fecha-hora
-                String stamp = LocalDateTime.now().format(
-                        DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss")
-                );
+        Iterator<T> elements = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return it.hasNextValue();
+                } catch (IOException e) {
+                    throw new RuntimeException("Error reading JSON file " + path + ": " + e.getMessage(), e);
+                }
+            }
 
-                Path backup = backupDir.resolve(path.getFileName().toString() + ".bak-" + stamp);
+            @Override
+            public T next() {
+                try {
+                    return it.nextValue();
+                } catch (IOException e) {
+                    throw new RuntimeException("Error reading JSON file " + path + ": " + e.getMessage(), e);
+                }
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(elements, Spliterator.ORDERED), false)
+                .onClose(() -> {
+                    try {
+                        it.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
 
-                Files.copy(path, backup, StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * Escribe una lista en JSON en el archivo indicado.
+     * Hace backup automático (BackupManager), y la escritura es atómica (usa .tmp y move).
+     */
+    public <T> void writeList(Path path, List<T> list) {
+        writeStream(path, list.stream());
+    }
 
-            } else {
-                // Si no existe el directorio destino, se crea
-                if (!Files.exists(path.getParent()))
-                    Files.createDirectories(path.getParent());
-            }
+    /**
+     * Escribe en el archivo un array JSON con los elementos del Stream, según se van generando
+     * (no se construye el JSON completo en memoria). Mismo formato, backup y escritura atómica que writeList.
+     * El Stream se cierra al terminar, antes de sustituir el fichero: así puede venir de readStream
+     * sobre el mismo fichero (leer, transformar y reescribir con memoria constante).
+     */
+    public <T> void writeStream(Path path, Stream<T> elements) {
+        try {
+            backup(path);
 
             //  primero crea un archivo temporal
             Path tmp = path.resolveSibling(path.getFileName().toString() + ".tmp");
 
-            writeString(tmp, json);
+            try (elements;
+                 OutputStream out = openOutput(tmp);
+                 SequenceWriter writer = mapper.writerWithDefaultPrettyPrinter().writeValuesAsArray(out)) {
+                for (Iterator<T> it = elements.iterator(); it.hasNext(); ) {
+                    writer.write(it.next());
+                }
+            }
 
             // Reemplaza el archivo original de forma segura
             Files.move(tmp, path,
@@ -91,9 +144,35 @@ public class JsonFileStore {
         }
     }
 
+    /**
+     * Si el archivo ya existe, guarda una copia en /backups/ (ver BackupManager: comprimida,
+     * en segundo plano y con retención); si no, crea el directorio destino.
+     * También la usa BinarySnapshot.
+     */
+    static void backup(Path path) throws IOException {
+        if (Files.exists(path)) {
+            BackupManager.shared().backup(path);
+        } else {
+            // Si no existe el directorio destino, se crea
+            if (!Files.exists(path.getParent()))
+                Files.createDirectories(path.getParent());
+        }
+    }
+
+    private static InputStream openInput(Path path) throws IOException {
+        return new BufferedInputStream(Channels.newInputStream(FileChannel.open(path, StandardOpenOption.READ)), BUFFER_SIZE);
+    }
+
+    private static OutputStream openOutput(Path path) throws IOException {
+        return new BufferedOutputStream(Channels.newOutputStream(FileChannel.open(path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)), BUFFER_SIZE);
+    }
+
     /**
      * Escribe un String directamente a un archivo.
-     * Usado por lectura vacía y escritura temporal.
+     * Usado por lectura vacía.
      */
     private void writeString(Path path, String content) throws IOException {
         Files.write(path, content.getBytes(),
@@ -0,0 +1,319 @@
+package es.pokedex.util;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Log de escritura anticipada (WAL) en formato JSON por líneas.
+ * Cada cambio se añade al final del fichero como un registro compacto en el momento de la llamada
+ * (así el orden del fichero es el de las llamadas y otros procesos ya lo ven al leer);
+ * un hilo escritor agrupa las esperas pendientes y hace un único fsync por grupo (group commit).
+ * Varios cambios que deben aplicarse juntos se escriben en una sola línea (array JSON):
+ * si la línea queda cortada por una caída se descartan todos, nunca una parte.
+ * Si un fsync falla, el log se recorta hasta lo que cubrió el último fsync correcto y fallan todas las
+ * esperas pendientes: lo que se quita es justo lo que sus llamantes reciben como fallido, así que un
+ * replay posterior nunca reaplica un cambio que se dio por fallido.
+ * close() hace fsync de lo pendiente, para el hilo escritor y cierra el fichero.
+ */
+public class JsonJournal<T> implements AutoCloseable {
+
+    public enum Op { PUT, DELETE, CLEAR }
+
+    /**
+     * Registro del log: operación, ID afectado y valor (solo en PUT).
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Entry<T>(Op op, String id, T value) {}
+
+    // Elemento de la cola del escritor: alguien espera el fsync de lo ya escrito, o la orden de parar
+    private record Pending(boolean stop, CompletableFuture<Void> done) {}
+
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final Path path;
+    private final JavaType entryType;
+    private final JavaType batchType;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final AtomicInteger records = new AtomicInteger(); // Registros desde el último vaciado
+    private final Object writeLock = new Object();             // Escrituras, vaciados, cola y cierre
+    private final Thread writer;
+    private volatile boolean closed;
+    private volatile boolean failed;                           // No se pudo recortar tras un fsync fallido
+    private volatile FileChannel channel;
+    private long durable;                                      // Bytes cubiertos por el último fsync correcto
+    private long truncations;                                  // Vaciados hechos (un fsync en curso no cubre lo de antes)
+
+    /**
+     * @param path    fichero del log (se crea si no existe)
+     * @param listRef tipo de la lista del snapshot, del que se saca el tipo de entidad
+     */
+    public JsonJournal(Path path, TypeReference<List<T>> listRef) {
+        this.path = path;
+        JavaType elementType = mapper.getTypeFactory().constructType(listRef).getContentType();
+        this.entryType = mapper.getTypeFactory().constructParametricType(Entry.class, elementType);
+        this.batchType = mapper.getTypeFactory().constructCollectionType(List.class, entryType);
+
+        this.writer = new Thread(this::writeLoop, "journal-" + path.getFileName());
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Añade un registro al log. El futuro se completa cuando el registro está en disco (fsync).
+     */
+    public CompletableFuture<Void> append(Op op, String id, T value) {
+        return appendAll(List.of(new Entry<>(op, id, value)));
+    }
+
+    /**
+     * Añade varios registros de forma atómica: van en una sola línea, así que tras una caída
+     * se reaplican todos o ninguno. La línea se escribe antes de volver (si falla, se lanza el error
+     * y el fichero queda como estaba); el futuro se completa cuando el fsync del grupo la deja en disco
+     * y falla, con la línea ya quitada del fichero, si el fsync falla. Si tampoco se pudo recortar,
+     * el log queda marcado como fallido y no admite más registros hasta que truncate lo vacía.
+     */
+    public CompletableFuture<Void> appendAll(List<Entry<T>> entries) {
+        if (entries.isEmpty()) return CompletableFuture.completedFuture(null);
+        byte[] bytes;
+        try {
+            byte[] line = mapper.writeValueAsBytes(entries.size() == 1 ? entries.get(0) : entries);
+            bytes = new byte[line.length + 1];
+            System.arraycopy(line, 0, bytes, 0, line.length);
+            bytes[line.length] = '\n';
+        } catch (IOException e) {
+            throw new RuntimeException("Error serializing journal entry for " + path + ": " + e.getMessage(), e);
+        }
+
+        synchronized (writeLock) {
+            checkOpen();
+            if (failed) throw new IllegalStateException("Journal " + path + " failed; compact to rebuild it");
+            long size = -1;
+            try {
+                FileChannel ch = channel();
+                size = ch.size();
+                ByteBuffer buf = ByteBuffer.wrap(bytes);
+                while (buf.hasRemaining()) ch.write(buf);
+            } catch (IOException e) {
+                if (!cutBack(size)) failed = true;
+                throw new RuntimeException("Error writing journal " + path + ": " + e.getMessage(), e);
+            }
+            records.addAndGet(entries.size());
+            return awaitForce();
+        }
+    }
+
+    /**
+     * Vacía el log: lo añadido antes de la llamada queda descartado y lo posterior se conserva.
+     * El futuro se completa cuando el vaciado está en disco.
+     */
+    public CompletableFuture<Void> truncate() {
+        synchronized (writeLock) {
+            checkOpen();
+            try {
+                channel().truncate(0);
+            } catch (IOException e) {
+                throw new RuntimeException("Error truncating journal " + path + ": " + e.getMessage(), e);
+            }
+            records.set(0);
+            durable = 0;
+            truncations++;
+            failed = false;   // El log ya no tiene nada que no esté en el snapshot
+            return awaitForce();
+        }
+    }
+
+    /**
+     * Espera a que todo lo escrito hasta ahora esté en disco.
+     */
+    public void sync() {
+        CompletableFuture<Void> done;
+        synchronized (writeLock) {
+            checkOpen();
+            done = awaitForce();
+        }
+        done.join();
+    }
+
+    /**
+     * Hace fsync de lo ya escrito, para el hilo escritor y cierra el fichero.
+     * Después, añadir o vaciar falla. Llamarlo más de una vez no hace nada.
+     */
+    @Override
+    public void close() {
+        synchronized (writeLock) {
+            if (closed) return;
+            closed = true;
+            queue.add(new Pending(true, new CompletableFuture<>()));
+        }
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    private void checkOpen() {
+        if (closed) throw new IllegalStateException("Journal " + path + " is closed");
+    }
+
+    // Con writeLock: el siguiente fsync del hilo escritor cubre todo lo escrito hasta aquí
+    private CompletableFuture<Void> awaitForce() {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        queue.add(new Pending(false, done));
+        return done;
+    }
+
+    // Con writeLock: quita lo escrito desde size (una escritura a medias o lo que no llegó a disco).
+    // Devuelve false si no se pudo recortar
+    private boolean cutBack(long size) {
+        if (size < 0 || channel == null) return true;
+        try {
+            channel.truncate(size);
+            return true;
+        } catch (IOException e) {
+            return false;   // Tras una escritura a medias, replay descartará desde la línea cortada
+        }
+    }
+
+    /**
+     * Número de registros añadidos desde el último vaciado.
+     */
+    public int size() { return records.get(); }
+
+    /**
+     * Lee el log desde el principio y entrega cada registro en orden.
+     * Una última línea incompleta (escritura cortada por una caída) se ignora.
+     */
+    public void replay(Consumer<Entry<T>> consumer) {
+        if (!Files.exists(path)) return;
+
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                List<Entry<T>> entries;
+                try {
+                    if (line.startsWith("[")) {
+                        entries = mapper.readValue(line, batchType);
+                    } else {
+                        Entry<T> entry = mapper.readValue(line, entryType);
+                        entries = List.of(entry);
+                    }
+                } catch (IOException e) {
+                    break; // Registro cortado: lo que sigue no llegó a confirmarse
+                }
+                entries.forEach(consumer);
+                count += entries.size();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading journal " + path + ": " + e.getMessage(), e);
+        }
+        records.set(count);
+    }
+
+    // ---------------- Hilo escritor ----------------
+
+    /**
+     * Bucle del hilo escritor: espera a que alguien pida un fsync, recoge todas las peticiones
+     * que haya en cola y las atiende con un solo fsync. Tras la orden de parar cierra el fichero y termina.
+     */
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>();
+        try {
+            while (true) {
+                try {
+                    batch.add(queue.take());
+                    queue.drainTo(batch);
+                    force(batch);
+                    if (batch.get(batch.size() - 1).stop()) return;   // La orden de parar es siempre la última
+                } catch (InterruptedException e) {
+                    return;
+                } finally {
+                    batch.clear();
+                }
+            }
+        } finally {
+            closeChannel();
+        }
+    }
+
+    private void force(List<Pending> batch) {
+        try {
+            FileChannel ch;
+            long upTo;
+            long truncatedBefore;
+            synchronized (writeLock) {
+                ch = channel;
+                upTo = ch == null ? 0 : ch.size();   // Lo de todas las esperas del lote ya está escrito
+                truncatedBefore = truncations;
+            }
+            if (ch != null) ch.force(false);
+            synchronized (writeLock) {
+                if (truncations == truncatedBefore) durable = Math.max(durable, upTo);
+            }
+            batch.forEach(p -> p.done().complete(null));
+
+        } catch (IOException e) {
+            RuntimeException ex = new RuntimeException("Error writing journal " + path + ": " + e.getMessage(), e);
+            List<Pending> queued = new ArrayList<>();
+            synchronized (writeLock) {
+                // Fuera todo lo que no cubrió un fsync correcto; sus esperas (las del lote y las que ya
+                // estén en cola, que se escribieron antes de recortar) fallan todas
+                if (!cutBack(durable)) failed = true;
+                queue.drainTo(queued);
+            }
+            batch.forEach(p -> p.done().completeExceptionally(ex));
+            for (Pending p : queued) {
+                if (p.stop()) queue.add(p);   // La orden de parar se atiende en la siguiente vuelta
+                else p.done().completeExceptionally(ex);
+            }
+        }
+    }
+
+    private void closeChannel() {
+        synchronized (writeLock) {
+            if (channel == null) return;
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Ya se hizo fsync de todo lo confirmado: no hay nada que perder
+            }
+            channel = null;
+        }
+    }
+
+    // Con writeLock
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            if (path.getParent() != null && !Files.exists(path.getParent()))
+                Files.createDirectories(path.getParent());
+            channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            durable = channel.size();   // Lo que ya había se leyó en replay: se da por confirmado
+        }
+        return channel;
+    }
+}
@@ -0,0 +1,158 @@
+package es.pokedex.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché LRU de PreparedStatement de una conexión física del pool.
+ * Pedir otra vez la misma SQL con la misma conexión devuelve la sentencia ya preparada (con
+ * useServerPrepStmts=true el servidor no vuelve a analizarla) y cerrarla la devuelve a la caché
+ * en lugar de cerrarla. Las que salen por el extremo LRU se cierran de verdad.
+ * Solo la usa quien tiene prestada la conexión, así que no necesita sincronización.
+ */
+final class StatementCache {
+
+    /**
+     * Contadores compartidos por las cachés de todas las conexiones de un pool.
+     */
+    static final class Metrics {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+    }
+
+    // La misma SQL con otro tipo de ResultSet es otra sentencia
+    private record Key(String sql, int resultSetType, int concurrency) {}
+
+    private static final class Entry {
+        final PreparedStatement statement;
+        boolean inUse;
+        boolean evicted;    // Salió de la caché mientras estaba prestada: se cierra al devolverla
+
+        Entry(PreparedStatement statement) { this.statement = statement; }
+    }
+
+    private final Connection connection;
+    private final int maxSize;
+    private final Metrics metrics;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(Connection connection, int maxSize, Metrics metrics) {
+        this.connection = connection;
+        this.maxSize = maxSize;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Sentencia preparada para la SQL: la de la caché si está libre o una nueva (que se guarda).
+     * Si la de la caché ya está prestada (la misma SQL abierta dos veces a la vez) se prepara
+     * otra aparte, que se cierra normalmente. owner es la conexión que verá getConnection().
+     */
+    PreparedStatement prepare(Connection owner, String sql, int resultSetType, int concurrency) throws SQLException {
+        if (maxSize == 0) return connection.prepareStatement(sql, resultSetType, concurrency);
+
+        Key key = new Key(sql, resultSetType, concurrency);
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.inUse) {
+            metrics.hits.increment();
+            entry.inUse = true;
+            return lend(owner, entry);
+        }
+
+        metrics.misses.increment();
+        PreparedStatement ps = connection.prepareStatement(sql, resultSetType, concurrency);
+        if (entry != null) return ps;
+
+        entry = new Entry(ps);
+        entry.inUse = true;
+        entries.put(key, entry);
+        evictOverflow();
+        return lend(owner, entry);
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            Entry eldest = it.next();
+            it.remove();
+            metrics.evictions.increment();
+            if (eldest.inUse) eldest.evicted = true;
+            else closeQuietly(eldest.statement);
+        }
+    }
+
+    /**
+     * Envoltorio de la sentencia para un uso: close() la deja lista para el siguiente
+     * y la devuelve a la caché; después, cualquier uso falla.
+     */
+    private PreparedStatement lend(Connection owner, Entry entry) {
+        boolean[] closed = {false};
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (obj, method, args) -> {
+                    switch (method.getName()) {
+                        case "close" -> {
+                            if (!closed[0]) {
+                                closed[0] = true;
+                                giveBack(entry);
+                            }
+                            return null;
+                        }
+                        case "isClosed" -> { return closed[0] || entry.statement.isClosed(); }
+                        case "getConnection" -> { return owner; }
+                        case "equals" -> { return obj == args[0]; }
+                        case "hashCode" -> { return System.identityHashCode(obj); }
+                        case "toString" -> { return "Cached[" + entry.statement + "]"; }
+                    }
+                    if (closed[0]) throw new SQLException("La sentencia ya está cerrada");
+                    try {
+                        return method.invoke(entry.statement, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * Deja la sentencia como recién preparada (sin ResultSet abierto, parámetros, lote pendiente,
+     * fetchSize, timeout ni límite de filas).
+     * Si no se puede, se saca de la caché y se cierra.
+     */
+    private void giveBack(Entry entry) {
+        entry.inUse = false;
+        if (entry.evicted) {
+            closeQuietly(entry.statement);
+            return;
+        }
+        try {
+            PreparedStatement ps = entry.statement;
+            ResultSet rs = ps.getResultSet();
+            if (rs != null) rs.close();
+            ps.clearParameters();
+            ps.clearBatch();
+            ps.clearWarnings();
+            ps.setFetchSize(0);
+            ps.setQueryTimeout(0);
+            ps.setMaxRows(0);
+        } catch (SQLException e) {
+            entries.values().remove(entry);
+            closeQuietly(entry.statement);
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement ps) {
+        try {
+            ps.close();
+        } catch (SQLException ignored) {
+            // La sentencia ya no sirve: no hay nada más que hacer
+        }
+    }
+}
@@ -0,0 +1,51 @@
+-- Esquema MySQL de pokedex_db
+
+CREATE TABLE IF NOT EXISTS pokemon (
+    pokedex_number CHAR(3)      NOT NULL PRIMARY KEY,
+    nombre         VARCHAR(100) NOT NULL,
+    tipo           VARCHAR(20)  NOT NULL,
+    INDEX idx_pokemon_tipo (tipo)
+);
+
+CREATE TABLE IF NOT EXISTS movimiento (
+    id       CHAR(6)      NOT NULL PRIMARY KEY,
+    nombre   VARCHAR(100) NOT NULL,
+    tipo     VARCHAR(20)  NOT NULL,
+    potencia INT          NOT NULL,
+    -- findByNombrePrefix: LIKE 'prefijo%' usa el índice (colación _ai_ci: sin mayúsculas ni acentos)
+    INDEX idx_movimiento_nombre (nombre)
+);
+
+CREATE TABLE IF NOT EXISTS entrenador (
+    id     CHAR(9)      NOT NULL PRIMARY KEY,
+    nombre VARCHAR(100) NOT NULL,
+    region VARCHAR(20)  NOT NULL,
+    INDEX idx_entrenador_nombre (nombre)
+);
+
+-- En las tablas intermedias, posicion guarda el orden de la lista (como en los JSON).
+-- En una base creada antes de esta columna:
+--   ALTER TABLE pokemon_movimiento ADD COLUMN posicion INT NOT NULL DEFAULT 0;
+--   ALTER TABLE entrenador_pokemon ADD COLUMN posicion INT NOT NULL DEFAULT 0;
+
+-- Movimientos de cada Pokémon (Pokemon.movimientoIds)
+CREATE TABLE IF NOT EXISTS pokemon_movimiento (
+    pokedex_number CHAR(3) NOT NULL,
+    movimiento_id  CHAR(6) NOT NULL,
+    posicion       INT     NOT NULL DEFAULT 0,
+    PRIMARY KEY (pokedex_number, movimiento_id),
+    INDEX idx_pm_movimiento (movimiento_id),
+    FOREIGN KEY (pokedex_number) REFERENCES pokemon (pokedex_number) ON DELETE CASCADE,
+    FOREIGN KEY (movimiento_id)  REFERENCES movimiento (id)          ON DELETE CASCADE
+);
+
+-- Equipo de cada entrenador (Entrenador.pokedexNumbers)
+CREATE TABLE IF NOT EXISTS entrenador_pokemon (
+    entrenador_id  CHAR(9) NOT NULL,
+    pokedex_number CHAR(3) NOT NULL,
+    posicion       INT     NOT NULL DEFAULT 0,
+    PRIMARY KEY (entrenador_id, pokedex_number),
+    INDEX idx_ep_pokemon (pokedex_number),
+    FOREIGN KEY (entrenador_id)  REFERENCES entrenador (id)          ON DELETE CASCADE,
+    FOREIGN KEY (pokedex_number) REFERENCES pokemon (pokedex_number) ON DELETE CASCADE
+);